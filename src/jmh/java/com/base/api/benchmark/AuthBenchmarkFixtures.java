@@ -0,0 +1,87 @@
+package com.base.api.benchmark;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
+import com.base.api.dto.SocialProvider;
+import com.base.api.model.AppUser;
+import com.base.api.model.Role;
+import com.base.api.security.jwt.JwtKeyRing;
+import com.base.api.security.jwt.TokenProvider;
+import com.base.api.security.jwt.TokenRevocationStore;
+import com.base.api.util.CommonUtils;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds the auth components by hand so benchmarks measure them without a Spring context or database.
+ */
+final class AuthBenchmarkFixtures {
+
+    static final String TOKEN_SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private AuthBenchmarkFixtures() {
+    }
+
+    static AppProperties appProperties(String signingAlgorithm) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAuth().setTokenSecret(TOKEN_SECRET);
+        appProperties.getAuth().setTokenExpirationMsec(900_000);
+        appProperties.getAuth().setSigningAlgorithm(signingAlgorithm);
+        appProperties.getAuth().getRevocation().setJournalFile("");
+        if (!"HS512".equals(signingAlgorithm)) {
+            KeyPair keyPair = JwtKeyRing.generateKeyPair(Jwts.SIG.get().forKey(signingAlgorithm));
+            appProperties.getAuth().getAsymmetric().setPrivateKeyFile(writePem("PRIVATE KEY", keyPair.getPrivate()));
+            appProperties.getAuth().getAsymmetric().setPublicKeyFile(writePem("PUBLIC KEY", keyPair.getPublic()));
+        }
+        return appProperties;
+    }
+
+    private static String writePem(String type, Key key) {
+        try {
+            Path file = Files.createTempFile("benchmark-jwt", ".pem");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(key.getEncoded()) + "\n-----END " + type + "-----\n");
+            return file.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static TokenProvider tokenProvider(AppProperties appProperties) {
+        return new TokenProvider(appProperties, new TokenRevocationStore(appProperties), new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param claimSize length of the free-text claims (display name and picture URL)
+     * @param roleCount number of roles embedded in the token
+     */
+    static LocalUser user(long id, int claimSize, int roleCount) {
+        Set<Role> roles = new HashSet<>();
+        for (int i = 0; i < roleCount; i++) {
+            roles.add(new Role("ROLE_BENCHMARK_" + i));
+        }
+        AppUser user = AppUser.builder()
+            .id(id)
+            .email("user" + id + "@example.com")
+            .displayName("n".repeat(claimSize))
+            .picture("https://example.com/" + "p".repeat(claimSize))
+            .provider(SocialProvider.LOCAL)
+            .password("{noop}password")
+            .enabled(true)
+            .roles(roles)
+            .build();
+        return new LocalUser(user.getEmail(), user.getPassword(), true, true, true, true,
+            CommonUtils.buildSimpleGrantedAuthorities(roles), user);
+    }
+}
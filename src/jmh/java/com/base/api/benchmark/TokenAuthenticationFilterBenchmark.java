@@ -0,0 +1,104 @@
+package com.base.api.benchmark;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
+import com.base.api.model.Role;
+import com.base.api.repo.RoleRepository;
+import com.base.api.repo.UserRepository;
+import com.base.api.security.jwt.AuthFailureTelemetry;
+import com.base.api.security.jwt.TokenAuthenticationFilter;
+import com.base.api.security.jwt.TokenProvider;
+import com.base.api.security.jwt.VerifiedTokenCache;
+import com.base.api.service.LocalUserDetailService;
+import com.base.api.service.RoleRegistry;
+import com.base.api.service.SecurityEpochService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link TokenAuthenticationFilter#getAuthentication} with the user lookup stubbed
+ * out, so the numbers isolate token handling from database latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenAuthenticationFilterBenchmark {
+
+    @Param({"16", "1000"})
+    public int claimSize;
+
+    @Param({"1", "10"})
+    public int roleCount;
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    @Param({"true", "false"})
+    public boolean statelessPrincipal;
+
+    private TokenAuthenticationFilter filter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        AppProperties appProperties = AuthBenchmarkFixtures.appProperties("HS512");
+        appProperties.getAuth().getTokenCache().setEnabled(tokenCache);
+        appProperties.getAuth().setStatelessPrincipal(statelessPrincipal);
+
+        TokenProvider tokenProvider = AuthBenchmarkFixtures.tokenProvider(appProperties);
+        LocalUser user = AuthBenchmarkFixtures.user(42, claimSize, roleCount);
+        token = tokenProvider.createToken(user);
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findSecurityEpochById(Mockito.anyLong())).thenReturn(0L);
+
+        filter = new TokenAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "customUserDetailsService", new StubUserDetailService(user, roleCount));
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", new VerifiedTokenCache(appProperties, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(filter, "securityEpochService", new SecurityEpochService(userRepository, appProperties, event -> { }));
+        ReflectionTestUtils.setField(filter, "appProperties", appProperties);
+        ReflectionTestUtils.setField(filter, "authFailureTelemetry", new AuthFailureTelemetry(appProperties, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken getAuthentication() {
+        return filter.getAuthentication(token);
+    }
+
+    private static final class StubUserDetailService extends LocalUserDetailService {
+
+        private final LocalUser user;
+
+        StubUserDetailService(LocalUser user, int roleCount) {
+            super(null, null, null, null, null, roleRegistry(roleCount));
+            this.user = user;
+        }
+
+        @Override
+        public LocalUser loadUserById(Long id) {
+            return user;
+        }
+
+        private static RoleRegistry roleRegistry(int roleCount) {
+            List<Role> roles = new ArrayList<>();
+            for (int i = 0; i < roleCount; i++) {
+                Role role = new Role("ROLE_BENCHMARK_" + i);
+                role.setRoleId((long) i);
+                roles.add(role);
+            }
+            RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+            Mockito.when(roleRepository.findAll()).thenReturn(roles);
+            return new RoleRegistry(roleRepository);
+        }
+    }
+}
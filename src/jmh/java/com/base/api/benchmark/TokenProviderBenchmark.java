@@ -0,0 +1,64 @@
+package com.base.api.benchmark;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
+import com.base.api.security.jwt.TokenProvider;
+import com.base.api.security.jwt.TokenValidationResult;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuance and verification throughput for different claim sizes, role counts and algorithms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenProviderBenchmark {
+
+    @Param({"16", "1000"})
+    public int claimSize;
+
+    @Param({"1", "3", "10"})
+    public int roleCount;
+
+    @Param({"HS512", "ES256", "EdDSA"})
+    public String signingAlgorithm;
+
+    @Param({"FULL", "MINIMAL"})
+    public AppProperties.ClaimProfile claimProfile;
+
+    private TokenProvider tokenProvider;
+    private LocalUser user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        AppProperties appProperties = AuthBenchmarkFixtures.appProperties(signingAlgorithm);
+        appProperties.getAuth().setClaimProfile(claimProfile);
+        tokenProvider = AuthBenchmarkFixtures.tokenProvider(appProperties);
+        user = AuthBenchmarkFixtures.user(42, claimSize, roleCount);
+        token = tokenProvider.createToken(user);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(user);
+    }
+
+    @Benchmark
+    public TokenValidationResult verifyToken() {
+        return tokenProvider.verifyToken(token);
+    }
+
+    /**
+     * The validate-then-parse sequence the filter used before single-pass verification, kept as a baseline.
+     */
+    @Benchmark
+    public Claims validateThenGetClaims() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getClaimsFromToken(token) : null;
+    }
+}
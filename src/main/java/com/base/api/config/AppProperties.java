@@ -6,7 +6,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Component
@@ -14,12 +16,230 @@ import java.util.List;
 public class AppProperties {
     private final Auth auth = new Auth();
     private final OAuth2 oauth2 = new OAuth2();
+    private final UserCache userCache = new UserCache();
+    private final UserExport userExport = new UserExport();
+    private final UserImport userImport = new UserImport();
+    private final UserActivity userActivity = new UserActivity();
+    private final Presence presence = new Presence();
+
+    public enum ClaimProfile {
+        // sub, roles and profile fields (email, displayName, provider, picture)
+        FULL,
+        // sub, short role codes and the security epoch only
+        MINIMAL
+    }
+
+    public enum TokenMode {
+        // Signed, self-contained JWT access tokens plus rotating refresh tokens
+        JWT,
+        // Random session ids resolved against the server-side session store
+        OPAQUE
+    }
 
     @Setter
     @Getter
     public static class Auth {
         private String tokenSecret;
+        // Lifetime of access tokens; keep short and let clients use refresh tokens
         private long tokenExpirationMsec;
+        private long refreshTokenExpirationMsec = 864_000_000;
+        // Written into the kid header of every token signed with tokenSecret
+        private String tokenKeyId = "primary";
+        // Retired secrets by kid, still accepted for verification until their tokens expire
+        private Map<String, String> previousTokenSecrets = new HashMap<>();
+        private final TokenCache tokenCache = new TokenCache();
+        // Build the principal from verified claims instead of loading the user on every request
+        private boolean statelessPrincipal = false;
+        // How long a node trusts its in-memory copy of a user's security epoch
+        private long securityEpochTtlMsec = 30_000;
+        private final Revocation revocation = new Revocation();
+        // HS512 signs with tokenSecret; ES256 or EdDSA sign with a key pair published at /.well-known/jwks.json
+        private String signingAlgorithm = "HS512";
+        private final Asymmetric asymmetric = new Asymmetric();
+        private final KeyStore keyStore = new KeyStore();
+        private ClaimProfile claimProfile = ClaimProfile.FULL;
+        // Hard limit on the encoded size of an access token
+        private int maxTokenBytes = 4096;
+        // Sampling of authentication failure log lines; everything is still counted
+        private double failureLogPermitsPerSecond = 1;
+        private int failureLogBurst = 10;
+        // Kind of access token handed out at sign-in; JWTs are still accepted in OPAQUE mode until they expire
+        private TokenMode tokenMode = TokenMode.JWT;
+        private final Session session = new Session();
+        private final PasswordHashing passwordHashing = new PasswordHashing();
+        private final LoginThrottle loginThrottle = new LoginThrottle();
+        private final KnownEmails knownEmails = new KnownEmails();
+        private final RefreshCookie refreshCookie = new RefreshCookie();
+    }
+
+    @Setter
+    @Getter
+    public static class RefreshCookie {
+        // HttpOnly cookie carrying the refresh token after a social sign-in, so it never appears in a redirect URL
+        private String name = "refresh_token";
+        // Only sent to the refresh endpoint
+        private String path = "/api/auth/refresh";
+        // Strict keeps cross-site requests from refreshing; use Lax or None (with secure) if the frontend is on another site
+        private String sameSite = "Strict";
+        private boolean secure = true;
+    }
+
+    @Setter
+    @Getter
+    public static class PasswordHashing {
+        // Threads hashing passwords for sign-in and sign-up; 0 uses one per available core
+        private int threads = 0;
+        private int queueCapacity = 256;
+        // Longest a caller waits for its hash to start before getting 503
+        private long maxWaitMsec = 2000;
+        private long retryAfterSeconds = 1;
+        // BCrypt cost for new hashes; 0 calibrates at startup to the highest cost in [minCost, maxCost] hashing within targetMsec
+        private int cost = 0;
+        private long targetMsec = 100;
+        private int minCost = 10;
+        private int maxCost = 14;
+    }
+
+    @Setter
+    @Getter
+    public static class LoginThrottle {
+        private boolean enabled = true;
+        // Sign-in attempts per email and per client IP, as a sustained rate plus a burst
+        private double emailPermitsPerSecond = 0.1;
+        private int emailBurst = 5;
+        private double ipPermitsPerSecond = 1;
+        private int ipBurst = 20;
+        // Failed attempts allowed before back-off starts; each further failure doubles the delay
+        private int freeFailures = 3;
+        private long backoffBaseMsec = 1000;
+        private long backoffMaxMsec = 300_000;
+        // Keys idle this long are forgotten; keep it longer than a bucket takes to refill
+        private long idleTimeoutMsec = 900_000;
+        // Keys tracked per key class; beyond this new keys are only limited by the other class
+        private int maxKeys = 100_000;
+        private int stripes = 16;
+        private long sweepIntervalMsec = 60_000;
+    }
+
+    @Setter
+    @Getter
+    public static class KnownEmails {
+        // Reject sign-ins for emails missing from an in-memory Bloom filter after an existence check, without loading a user
+        private boolean enabled = true;
+        private int expectedEmails = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        // Picks up users created on other nodes; until then each of their sign-ins costs one extra existence query
+        private long rebuildIntervalMsec = 300_000;
+        // Emails the existence check found missing are rejected without another query for this long,
+        // so a user created on another node may be turned away until then or the next rebuild
+        private long missCacheTtlMsec = 30_000;
+        private long missCacheMaxSize = 100_000;
+    }
+
+    @Setter
+    @Getter
+    public static class Session {
+        // A session ends after this long without a request, or absoluteTimeoutMsec after sign-in
+        private long idleTimeoutMsec = 1_800_000;
+        private long absoluteTimeoutMsec = 43_200_000;
+        private int stripes = 16;
+        // Also store sessions in the auth_session table so they survive restarts and are shared between nodes
+        private boolean writeThrough = false;
+        // With writeThrough, ids not found in the table are remembered this long so repeated unknown ids cost one lookup
+        private long missCacheTtlMsec = 60_000;
+        private long missCacheMaxSize = 100_000;
+        // With writeThrough, a session in memory is checked against the table this often, so a logout on another node ends it here too
+        private long recheckIntervalMsec = 30_000;
+        private long sweepIntervalMsec = 60_000;
+    }
+
+    @Setter
+    @Getter
+    public static class KeyStore {
+        // How often every node reloads rotated signing keys from the jwt_key table; a new key starts signing two intervals after rotation
+        private long syncIntervalMsec = 10_000;
+    }
+
+    @Setter
+    @Getter
+    public static class Asymmetric {
+        // PEM encoded PKCS#8 private key and X.509 public key; required for ES256 and EdDSA, shared by all nodes
+        private String privateKeyFile;
+        private String publicKeyFile;
+        // A rotated-in key is published in the JWK set this long before it starts signing tokens
+        private long activationDelayMsec = 300_000;
+        private long jwksMaxAgeSeconds = 300;
+    }
+
+    @Setter
+    @Getter
+    public static class TokenCache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        // Upper bound on how long a verified token is trusted without re-checking, even if exp is later
+        private long maxTtlMsec = 300_000;
+    }
+
+    @Setter
+    @Getter
+    public static class UserCache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        // Safety net for changes made outside this node; local writes evict immediately
+        private long expireAfterWriteMsec = 60_000;
+    }
+
+    @Setter
+    @Getter
+    public static class UserExport {
+        // MySQL Connector/J only streams row by row with Integer.MIN_VALUE; other drivers take a positive batch size
+        private int fetchSize = Integer.MIN_VALUE;
+        // Applies to /api/users/export only; other async requests keep spring.mvc.async.request-timeout
+        private long timeoutMsec = 1_800_000;
+    }
+
+    @Setter
+    @Getter
+    public static class UserImport {
+        private int maxRows = 100_000;
+        // Rows per existence query, JDBC batch and transaction
+        private int batchSize = 1000;
+        // Threads hashing passwords; 0 uses one per available core
+        private int hashingThreads = 0;
+    }
+
+    @Setter
+    @Getter
+    public static class UserActivity {
+        // Record last-login and last-seen timestamps; they reach the database up to flushIntervalMsec later
+        private boolean enabled = true;
+        private long flushIntervalMsec = 10_000;
+        private int batchSize = 500;
+        // Users waiting to be written; past this, updates for further users are dropped until a flush succeeds
+        private int maxPending = 100_000;
+    }
+
+    @Setter
+    @Getter
+    public static class Presence {
+        // Users without a heartbeat for this long are marked DISCONNECTED
+        private long idleTimeoutMsec = 60_000;
+        // Resolution of the timing wheel that finds idle users
+        private long tickMsec = 1000;
+        private int stripes = 16;
+        private long flushIntervalMsec = 5000;
+    }
+
+    @Setter
+    @Getter
+    public static class Revocation {
+        // Absolute path of an append-only journal of revoked token ids, so the denylist survives
+        // restarts; empty keeps it in memory only. Either way the denylist is per node: a token
+        // logged out on one node stays usable on the others until it expires
+        private String journalFile = "";
+        private int expectedRevocations = 100_000;
+        private double falsePositiveRate = 0.01;
+        private long purgeIntervalMsec = 60_000;
     }
 
     @Getter
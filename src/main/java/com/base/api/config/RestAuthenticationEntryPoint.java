@@ -1,5 +1,8 @@
 package com.base.api.config;
 
+import com.base.api.security.jwt.AuthFailureTelemetry;
+import com.base.api.security.jwt.TokenAuthenticationFilter;
+import com.base.api.security.jwt.TokenValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.AuthenticationException;
@@ -12,9 +15,19 @@ public class RestAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
     private static final Logger logger = LoggerFactory.getLogger(RestAuthenticationEntryPoint.class);
 
+    private final AuthFailureTelemetry authFailureTelemetry;
+
+    public RestAuthenticationEntryPoint(AuthFailureTelemetry authFailureTelemetry) {
+        this.authFailureTelemetry = authFailureTelemetry;
+    }
+
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException {
-        logger.error("Unauthorized access: {}", authException.getMessage());
+        // Rejected tokens were counted by the filter; only a protected endpoint turns a missing one into a failure
+        if (TokenAuthenticationFilter.getJwtFromRequest(request) == null) {
+            authFailureTelemetry.recordFailure(TokenValidationResult.Failure.MISSING, null);
+        }
+        logger.debug("Unauthorized access: {}", authException.getMessage());
         response.sendError(HttpServletResponse.SC_UNAUTHORIZED, authException.getMessage());
     }
 }
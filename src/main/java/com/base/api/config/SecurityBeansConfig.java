@@ -1,20 +1,36 @@
 package com.base.api.config;
 
 import com.base.api.security.oauth2.HttpCookieOAuth2AuthorizationRequestRepository;
+import com.base.api.security.password.BoundedPasswordEncoder;
+import com.base.api.security.password.PasswordCostCalibrator;
+import com.base.api.security.password.PasswordHashingExecutor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.BeanIds;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 @Configuration
 public class SecurityBeansConfig {
     
+    /*
+     * New hashes are stored as {bcrypt}<hash> at the configured or calibrated cost. Hashes written
+     * before the prefix was introduced still match through the default BCrypt encoder, and both they
+     * and hashes of a lower cost are re-encoded on the next successful sign-in.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor, AppProperties appProperties) {
+        AppProperties.PasswordHashing config = appProperties.getAuth().getPasswordHashing();
+        int cost = config.getCost() > 0 ? config.getCost()
+            : PasswordCostCalibrator.calibrate(config.getTargetMsec(), config.getMinCost(), config.getMaxCost());
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(cost)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(cost));
+        return new BoundedPasswordEncoder(encoder, passwordHashingExecutor);
     }
 
     /*
@@ -5,6 +5,7 @@ import com.base.api.model.AppUser;
 import com.base.api.model.Role;
 import com.base.api.repo.RoleRepository;
 import com.base.api.repo.UserRepository;
+import com.base.api.service.RoleRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -31,6 +32,9 @@ public class SetupDataLoader implements ApplicationListener<ContextRefreshedEven
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     @Override
     @Transactional
     public void onApplicationEvent(final @NonNull ContextRefreshedEvent event) {
@@ -41,6 +45,7 @@ public class SetupDataLoader implements ApplicationListener<ContextRefreshedEven
         Role userRole = createRoleIfNotFound(Role.ROLE_USER);
         Role adminRole = createRoleIfNotFound(Role.ROLE_ADMIN);
         Role modRole = createRoleIfNotFound(Role.ROLE_MODERATOR);
+        roleRegistry.reload();
         createUserIfNotFound("admin@test.com", Set.of(userRole, adminRole, modRole), "Admin");
         createUserIfNotFound("johndoe@test.com", Set.of(userRole), "john");
         createUserIfNotFound("janedoe@test.com", Set.of(userRole), "jane");
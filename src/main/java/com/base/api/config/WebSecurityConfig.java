@@ -1,7 +1,9 @@
 package com.base.api.config;
 
+import com.base.api.security.jwt.AuthFailureTelemetry;
 import com.base.api.security.jwt.TokenAuthenticationFilter;
 import com.base.api.security.oauth2.*;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -24,17 +26,20 @@ public class WebSecurityConfig {
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
     private final OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
     private final HttpCookieOAuth2AuthorizationRequestRepository cookieAuthorizationRequestRepository;
+    private final AuthFailureTelemetry authFailureTelemetry;
 
     public WebSecurityConfig(CustomOAuth2UserService customOAuth2UserService,
                              CustomOidcUserService customOidcUserService,
                              OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler,
                              OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler,
-                             HttpCookieOAuth2AuthorizationRequestRepository cookieAuthorizationRequestRepository) {
+                             HttpCookieOAuth2AuthorizationRequestRepository cookieAuthorizationRequestRepository,
+                             AuthFailureTelemetry authFailureTelemetry) {
         this.customOAuth2UserService = customOAuth2UserService;
         this.customOidcUserService = customOidcUserService;
         this.oAuth2AuthenticationSuccessHandler = oAuth2AuthenticationSuccessHandler;
         this.oAuth2AuthenticationFailureHandler = oAuth2AuthenticationFailureHandler;
         this.cookieAuthorizationRequestRepository = cookieAuthorizationRequestRepository;
+        this.authFailureTelemetry = authFailureTelemetry;
     }
 
     @Bean
@@ -45,16 +50,22 @@ public class WebSecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .formLogin(Customizer.withDefaults())
             // Remove or comment out the RestAuthenticationEntryPoint for testing form login
-            .exceptionHandling(exception -> exception.authenticationEntryPoint(new RestAuthenticationEntryPoint()))
+            .exceptionHandling(exception -> exception.authenticationEntryPoint(new RestAuthenticationEntryPoint(authFailureTelemetry)))
             .authorizeHttpRequests(auth -> {
+                // The dispatch that completes an async request such as the user export was authorized when it started
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                 auth.requestMatchers("/",
                     "/error",
                     "/api/all",
                     "/api/auth/**",
                     "/oauth2/**",
+                    "/.well-known/jwks.json",
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
                     "/swagger-ui.html").permitAll();
+                // Load balancer and orchestrator probes; details stay hidden from anonymous callers
+                auth.requestMatchers("/actuator/health", "/actuator/health/**").permitAll();
+                auth.requestMatchers("/actuator/**").hasRole("ADMIN");
                 auth.anyRequest().authenticated();
             })
             .oauth2Login(oauth2 -> oauth2
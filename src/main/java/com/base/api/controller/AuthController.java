@@ -1,20 +1,33 @@
 package com.base.api.controller;
 
+import com.base.api.config.AppProperties;
 import com.base.api.dto.*;
 import com.base.api.exception.UserAlreadyExistAuthenticationException;
+import com.base.api.security.jwt.TokenAuthenticationFilter;
 import com.base.api.security.jwt.TokenProvider;
+import com.base.api.security.oauth2.RefreshTokenCookie;
+import com.base.api.security.session.SessionStore;
+import com.base.api.security.throttle.LoginThrottle;
+import com.base.api.service.LocalUserDetailService;
+import com.base.api.service.RefreshTokenService;
+import com.base.api.service.UserActivityRecorder;
 import com.base.api.service.UserService;
 import com.base.api.util.CommonUtils;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 @Slf4j
@@ -29,19 +42,82 @@ public class AuthController {
 
     final TokenProvider tokenProvider;
 
-    public AuthController(AuthenticationManager authenticationManager, UserService userService, TokenProvider tokenProvider) {
+    final RefreshTokenService refreshTokenService;
+
+    final LocalUserDetailService localUserDetailService;
+
+    final SessionStore sessionStore;
+
+    final AppProperties appProperties;
+
+    final UserActivityRecorder userActivityRecorder;
+
+    final LoginThrottle loginThrottle;
+
+    final RefreshTokenCookie refreshTokenCookie;
+
+    public AuthController(AuthenticationManager authenticationManager, UserService userService, TokenProvider tokenProvider,
+                          RefreshTokenService refreshTokenService, LocalUserDetailService localUserDetailService,
+                          SessionStore sessionStore, AppProperties appProperties, UserActivityRecorder userActivityRecorder,
+                          LoginThrottle loginThrottle, RefreshTokenCookie refreshTokenCookie) {
         this.authenticationManager = authenticationManager;
         this.userService = userService;
         this.tokenProvider = tokenProvider;
+        this.refreshTokenService = refreshTokenService;
+        this.localUserDetailService = localUserDetailService;
+        this.sessionStore = sessionStore;
+        this.appProperties = appProperties;
+        this.userActivityRecorder = userActivityRecorder;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokenCookie = refreshTokenCookie;
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+        loginThrottle.acquire(loginRequest.getEmail(), clientIp);
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+        } catch (BadCredentialsException e) {
+            loginThrottle.recordFailure(loginRequest.getEmail(), clientIp);
+            throw e;
+        }
+        loginThrottle.recordSuccess(loginRequest.getEmail());
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication);
         LocalUser localUser = (LocalUser) authentication.getPrincipal();
-        return ResponseEntity.ok(new JwtAuthenticationResponse(jwt, CommonUtils.buildUserInfo(localUser)));
+        userActivityRecorder.recordLogin(localUser.getUser().getId());
+        if (isOpaqueMode()) {
+            // Sessions slide with use, so there is no refresh token in this mode
+            return ResponseEntity.ok(new JwtAuthenticationResponse(sessionStore.create(localUser), null, CommonUtils.buildUserInfo(localUser)));
+        }
+        String jwt = tokenProvider.createToken(authentication);
+        String refreshToken = refreshTokenService.issue(localUser.getUser().getId());
+        return ResponseEntity.ok(new JwtAuthenticationResponse(jwt, refreshToken, CommonUtils.buildUserInfo(localUser)));
+    }
+
+    /**
+     * Takes the refresh token from the request body or, after a social sign-in, from the refresh
+     * cookie. A token that came in the cookie goes back out in the cookie and is left out of the body.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody(required = false) RefreshTokenRequest refreshTokenRequest,
+                                          HttpServletRequest request, HttpServletResponse response) {
+        boolean fromBody = refreshTokenRequest != null && StringUtils.hasText(refreshTokenRequest.refreshToken());
+        String presented = fromBody ? refreshTokenRequest.refreshToken()
+            : refreshTokenCookie.read(request).orElseThrow(() -> new BadCredentialsException("Missing refresh token"));
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(presented);
+        LocalUser localUser = localUserDetailService.loadUserById(rotation.userId());
+        if (!localUser.isEnabled()) {
+            refreshTokenService.revokeAll(rotation.userId());
+            throw new DisabledException("User is disabled");
+        }
+        String jwt = tokenProvider.createToken(localUser);
+        if (!fromBody) {
+            refreshTokenCookie.write(response, rotation.refreshToken());
+            return ResponseEntity.ok(new JwtAuthenticationResponse(jwt, null, CommonUtils.buildUserInfo(localUser)));
+        }
+        return ResponseEntity.ok(new JwtAuthenticationResponse(jwt, rotation.refreshToken(), CommonUtils.buildUserInfo(localUser)));
     }
 
     @PostMapping("/signup")
@@ -57,8 +133,20 @@ public class AuthController {
 
     @RequestMapping(value = "/logout/{id}", method = RequestMethod.GET)
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> updateUserStatus(@PathVariable long id) {
+    public ResponseEntity<?> updateUserStatus(@PathVariable long id, HttpServletRequest request, HttpServletResponse response) {
         userService.updateUserStatus(id);
+        String token = TokenAuthenticationFilter.getJwtFromRequest(request);
+        if (isOpaqueMode() && token != null && SessionStore.isSessionId(token)) {
+            sessionStore.revoke(token);
+        } else {
+            tokenProvider.revokeToken(token);
+        }
+        refreshTokenService.revokeAll(userService.getCurrentUserId());
+        refreshTokenCookie.clear(response);
         return ResponseEntity.ok().build();
     }
+
+    private boolean isOpaqueMode() {
+        return appProperties.getAuth().getTokenMode() == AppProperties.TokenMode.OPAQUE;
+    }
 }
@@ -0,0 +1,30 @@
+package com.base.api.controller;
+
+import com.base.api.dto.AuthFailureSummary;
+import com.base.api.security.jwt.AuthFailureTelemetry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/auth-failures")
+@Tag(name = "Authentication Telemetry", description = "Counters for rejected bearer tokens")
+@PreAuthorize("hasRole('ADMIN')")
+public class AuthTelemetryController {
+
+    private final AuthFailureTelemetry authFailureTelemetry;
+
+    public AuthTelemetryController(AuthFailureTelemetry authFailureTelemetry) {
+        this.authFailureTelemetry = authFailureTelemetry;
+    }
+
+    @Operation(summary = "Failure counts by reason since startup")
+    @GetMapping
+    public ResponseEntity<AuthFailureSummary> getSummary() {
+        return ResponseEntity.ok(authFailureTelemetry.getSummary());
+    }
+}
@@ -0,0 +1,34 @@
+package com.base.api.controller;
+
+import com.base.api.config.AppProperties;
+import com.base.api.security.jwt.TokenProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@Tag(name = "JWKS", description = "Public keys for verifying tokens without calling back into this service")
+public class JwksController {
+
+    private final TokenProvider tokenProvider;
+    private final AppProperties appProperties;
+
+    public JwksController(TokenProvider tokenProvider, AppProperties appProperties) {
+        this.tokenProvider = tokenProvider;
+        this.appProperties = appProperties;
+    }
+
+    @Operation(summary = "JSON Web Key Set of the token verification keys")
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(appProperties.getAuth().getAsymmetric().getJwksMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic())
+            .body(tokenProvider.getJwks());
+    }
+}
@@ -0,0 +1,34 @@
+package com.base.api.controller;
+
+import com.base.api.service.PresenceService;
+import com.base.api.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/presence")
+@Tag(name = "Presence", description = "Heartbeats that keep the current user ACTIVE")
+@PreAuthorize("hasRole('USER')")
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    private final UserService userService;
+
+    public PresenceController(PresenceService presenceService, UserService userService) {
+        this.presenceService = presenceService;
+        this.userService = userService;
+    }
+
+    @Operation(summary = "Mark the current user as online", description = "Send at least once per app.presence.idleTimeoutMsec")
+    @PostMapping("/heartbeat")
+    public ResponseEntity<Void> heartbeat() {
+        presenceService.heartbeat(userService.getCurrentUserId());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.base.api.controller;
+
+import com.base.api.model.Role;
+import com.base.api.service.RoleRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/roles")
+@Tag(name = "Role Registry", description = "Inspect and reload the in-memory role registry")
+@PreAuthorize("hasRole('ADMIN')")
+public class RoleController {
+
+    private final RoleRegistry roleRegistry;
+
+    public RoleController(RoleRegistry roleRegistry) {
+        this.roleRegistry = roleRegistry;
+    }
+
+    @Operation(summary = "List the roles currently held by the registry")
+    @GetMapping
+    public ResponseEntity<List<String>> getRoles() {
+        return ResponseEntity.ok(roleRegistry.getAll().stream().map(Role::getName).sorted().toList());
+    }
+
+    @Operation(summary = "Reload the registry from the database")
+    @PostMapping("/reload")
+    public ResponseEntity<List<String>> reload() {
+        return ResponseEntity.ok(roleRegistry.reload().stream().map(Role::getName).sorted().toList());
+    }
+}
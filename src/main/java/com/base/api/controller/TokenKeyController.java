@@ -0,0 +1,55 @@
+package com.base.api.controller;
+
+import com.base.api.dto.ApiResponse;
+import com.base.api.dto.TokenKeyRequest;
+import com.base.api.exception.BadRequestException;
+import com.base.api.security.jwt.SigningKeyStore;
+import com.base.api.security.jwt.TokenProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/admin/token-keys")
+@Tag(name = "Token Keys", description = "Runtime rotation of JWT signing keys")
+@PreAuthorize("hasRole('ADMIN')")
+public class TokenKeyController {
+
+    private final TokenProvider tokenProvider;
+    private final SigningKeyStore signingKeyStore;
+
+    public TokenKeyController(TokenProvider tokenProvider, SigningKeyStore signingKeyStore) {
+        this.tokenProvider = tokenProvider;
+        this.signingKeyStore = signingKeyStore;
+    }
+
+    @Operation(summary = "List key ids accepted for verification")
+    @GetMapping
+    public ResponseEntity<Set<String>> getKeyIds() {
+        return ResponseEntity.ok(tokenProvider.getKeyIds());
+    }
+
+    @Operation(summary = "Generate a new signing key, shared with all nodes before it starts signing")
+    @PostMapping
+    public ResponseEntity<ApiResponse> rotate(@RequestBody(required = false) TokenKeyRequest request) {
+        try {
+            String keyId = signingKeyStore.rotate(request != null ? request.keyId() : null);
+            return ResponseEntity.ok(new ApiResponse(true, "Signing key " + keyId + " published"));
+        } catch (IllegalStateException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Stop accepting tokens signed with a previous key")
+    @DeleteMapping("/{keyId}")
+    public ResponseEntity<ApiResponse> retire(@PathVariable String keyId) {
+        if (!signingKeyStore.retire(keyId)) {
+            throw new BadRequestException("Key " + keyId + " is unknown, the current signing key or pending activation");
+        }
+        return ResponseEntity.ok(new ApiResponse(true, "Key " + keyId + " retired"));
+    }
+}
@@ -1,19 +1,34 @@
 package com.base.api.controller;
 
+import com.base.api.config.AppProperties;
 import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.SocialProvider;
+import com.base.api.dto.UserFilter;
+import com.base.api.dto.UserImportReport;
+import com.base.api.dto.UserImportRow;
 import com.base.api.dto.UserInfo;
+import com.base.api.dto.UserPage;
+import com.base.api.dto.UserStatus;
 import com.base.api.exception.UserAlreadyExistAuthenticationException;
+import com.base.api.service.UserExportService;
+import com.base.api.service.UserImportService;
 import com.base.api.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
 import java.util.List;
 
 @Slf4j
@@ -25,8 +40,18 @@ public class UserManagementController {
 
     private final UserService userService;
 
-    public UserManagementController(UserService userService) {
+    private final UserExportService userExportService;
+
+    private final UserImportService userImportService;
+
+    private final long exportTimeoutMsec;
+
+    public UserManagementController(UserService userService, UserExportService userExportService, UserImportService userImportService,
+                                    AppProperties appProperties) {
         this.userService = userService;
+        this.userExportService = userExportService;
+        this.userImportService = userImportService;
+        this.exportTimeoutMsec = appProperties.getUserExport().getTimeoutMsec();
     }
 
     @Operation(summary = "Get user by ID")
@@ -38,12 +63,60 @@ public class UserManagementController {
         return ResponseEntity.ok(userInfo);
     }
 
-    @Operation(summary = "Get all users")
-    @ApiResponse(responseCode = "200", description = "List of users retrieved")
+    @Operation(summary = "Get users, one page at a time",
+        description = "Pages are ordered by user id; pass nextCursor back as 'after' to fetch the following page")
+    @ApiResponse(responseCode = "200", description = "Page of users retrieved")
+    @ApiResponse(responseCode = "400", description = "Invalid limit or cursor")
     @GetMapping
-    public ResponseEntity<List<UserInfo>> findAllUsers() {
-        List<UserInfo> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserPage> findAllUsers(@RequestParam(defaultValue = "50") int limit,
+                                                 @RequestParam(required = false) String after,
+                                                 @RequestParam(required = false) UserStatus status,
+                                                 @RequestParam(required = false) SocialProvider provider,
+                                                 @RequestParam(required = false) String role) {
+        UserPage page = userService.getUsers(new UserFilter(status, provider, role), after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(summary = "Search users by display name or email prefix",
+        description = "Case-insensitive prefix match; exact matches first, then display name matches, then email matches")
+    @ApiResponse(responseCode = "200", description = "Page of matching users")
+    @ApiResponse(responseCode = "400", description = "Missing query, invalid limit or cursor")
+    @GetMapping("/search")
+    public ResponseEntity<UserPage> searchUsers(@RequestParam String q,
+                                                @RequestParam(defaultValue = "20") int limit,
+                                                @RequestParam(required = false) String after) {
+        return ResponseEntity.ok(userService.searchUsers(q, after, limit));
+    }
+
+    @Operation(summary = "Export all users", description = "Streams every user as NDJSON (one JSON object per line) or CSV")
+    @ApiResponse(responseCode = "200", description = "Export streamed")
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportUsers(@RequestParam(defaultValue = "NDJSON") UserExportService.Format format,
+                                          HttpServletResponse response) {
+        boolean csv = format == UserExportService.Format.CSV;
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + (csv ? "csv" : "ndjson"));
+        // Its own timeout, so only the export may outlive spring.mvc.async.request-timeout
+        return new WebAsyncTask<>(exportTimeoutMsec, () -> {
+            userExportService.export(format, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @Operation(summary = "Import users from a JSON array", description = "Creates users in batches and reports the outcome of every row, including the passwords generated for rows without one")
+    @ApiResponse(responseCode = "200", description = "Import finished; see the per-row results")
+    @ApiResponse(responseCode = "400", description = "Too many rows")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserImportReport> importUsers(@RequestBody List<UserImportRow> rows) {
+        return ResponseEntity.ok(userImportService.importUsers(rows));
+    }
+
+    @Operation(summary = "Import users from CSV", description = "RFC 4180 CSV with the header email,displayName,password,roles; roles are separated by ';'")
+    @ApiResponse(responseCode = "200", description = "Import finished; see the per-row results")
+    @ApiResponse(responseCode = "400", description = "Missing header or too many rows")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<UserImportReport> importUsersCsv(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(userImportService.parseCsv(request.getReader())));
     }
 
     @Operation(summary = "Create new user")
@@ -0,0 +1,7 @@
+package com.base.api.dto;
+
+import java.util.Date;
+import java.util.Map;
+
+public record AuthFailureSummary(Map<String, Long> failures, long errors, long suppressedLogLines, Date since) {
+}
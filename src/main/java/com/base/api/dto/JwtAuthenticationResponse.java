@@ -1,4 +1,4 @@
 package com.base.api.dto;
 
-public record JwtAuthenticationResponse(String accessToken, UserInfo user) {
+public record JwtAuthenticationResponse(String accessToken, String refreshToken, UserInfo user) {
 }
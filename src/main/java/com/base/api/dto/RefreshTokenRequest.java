@@ -0,0 +1,7 @@
+package com.base.api.dto;
+
+/**
+ * @param refreshToken the refresh token; omitted when it is held in the refresh cookie
+ */
+public record RefreshTokenRequest(String refreshToken) {
+}
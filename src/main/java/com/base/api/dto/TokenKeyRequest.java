@@ -0,0 +1,7 @@
+package com.base.api.dto;
+
+/**
+ * @param keyId id for the new signing key; derived from the generated key when omitted
+ */
+public record TokenKeyRequest(String keyId) {
+}
@@ -0,0 +1,9 @@
+package com.base.api.dto;
+
+/**
+ * Optional filters for user listings; null fields match everything.
+ */
+public record UserFilter(UserStatus status, SocialProvider provider, String role) {
+
+    public static final UserFilter NONE = new UserFilter(null, null, null);
+}
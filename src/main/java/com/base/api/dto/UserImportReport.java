@@ -0,0 +1,6 @@
+package com.base.api.dto;
+
+import java.util.List;
+
+public record UserImportReport(int created, int duplicates, int invalid, long elapsedMsec, List<UserImportResult> results) {
+}
@@ -0,0 +1,20 @@
+package com.base.api.dto;
+
+/**
+ * Outcome of one row of a bulk import; {@code row} is the zero-based position in the upload.
+ * {@code generatedPassword} is only set for created users whose row had no password, and is the only
+ * place that password is ever shown.
+ */
+public record UserImportResult(int row, String email, Status status, String message, String generatedPassword) {
+
+    public UserImportResult(int row, String email, Status status, String message) {
+        this(row, email, status, message, null);
+    }
+
+    public enum Status {
+        CREATED,
+        // Email already registered, or repeated earlier in the same upload
+        DUPLICATE,
+        INVALID
+    }
+}
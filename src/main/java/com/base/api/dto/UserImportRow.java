@@ -0,0 +1,10 @@
+package com.base.api.dto;
+
+import java.util.List;
+
+/**
+ * One user in a bulk import. A missing password is replaced by a generated one and missing roles
+ * default to {@code ROLE_USER}.
+ */
+public record UserImportRow(String email, String displayName, String password, List<String> roles) {
+}
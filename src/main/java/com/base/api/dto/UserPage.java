@@ -0,0 +1,10 @@
+package com.base.api.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user listing. {@code nextCursor} is passed back as {@code after} to fetch the
+ * following page and is null on the last page.
+ */
+public record UserPage(List<UserInfo> users, String nextCursor) {
+}
@@ -0,0 +1,20 @@
+package com.base.api.dto;
+
+/**
+ * One row of a user listing query: a user's profile columns joined with one of their role names.
+ * Users with several roles appear once per role and are folded into a single {@link UserInfo}.
+ */
+public interface UserRoleRow {
+
+    Long getId();
+
+    String getDisplayName();
+
+    String getPicture();
+
+    String getEmail();
+
+    String getStatus();
+
+    String getRoleName();
+}
@@ -0,0 +1,13 @@
+package com.base.api.dto;
+
+/**
+ * Search candidate read from the display name or email index, before ranking.
+ */
+public interface UserSearchHit {
+
+    Long getId();
+
+    String getDisplayName();
+
+    String getEmail();
+}
@@ -0,0 +1,23 @@
+package com.base.api.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a sign-in attempt exceeds the rate allowed for its email or client IP; mapped to 429 with a Retry-After header.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 4190374563187210957L;
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,23 @@
+package com.base.api.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown when the password hashing executor is saturated; mapped to 503 with a Retry-After header.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = -2265403841924779409L;
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
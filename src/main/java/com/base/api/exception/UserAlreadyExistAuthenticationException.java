@@ -13,4 +13,8 @@ public class UserAlreadyExistAuthenticationException extends AuthenticationExcep
         super(msg);
     }
 
+    public UserAlreadyExistAuthenticationException(final String msg, final Throwable cause) {
+        super(msg, cause);
+    }
+
 }
@@ -18,10 +18,18 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(name = "app_user", indexes = {
+    @Index(name = AppUser.EMAIL_INDEX, columnList = "email", unique = true),
+    @Index(name = AppUser.PROVIDER_USER_INDEX, columnList = "provider, PROVIDER_USER_ID", unique = true),
+    @Index(name = "idx_app_user_display_name", columnList = "DISPLAY_NAME")
+})
 public class AppUser implements Serializable {
     @Serial
     private static final long serialVersionUID = 65981149772133526L;
 
+    public static final String EMAIL_INDEX = "uk_app_user_email";
+    public static final String PROVIDER_USER_INDEX = "uk_app_user_provider_user";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "USER_ID")
@@ -61,6 +69,22 @@ public class AppUser implements Serializable {
     @Builder.Default
     private String status = UserStatus.ACTIVE.name();
 
+    // Bumped on security-relevant changes; tokens carrying an older epoch are rejected
+    @JsonIgnore
+    @Column(name = "security_epoch", nullable = false)
+    private long securityEpoch;
+
+    // Written in batches by UserActivityRecorder only, never by JPA
+    @JsonIgnore
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastLoginAt;
+
+    @JsonIgnore
+    @Column(name = "last_seen_at", insertable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastSeenAt;
+
     // bidirectional many-to-many association to Role
     @JsonIgnore
     @ManyToMany
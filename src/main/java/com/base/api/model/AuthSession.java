@@ -0,0 +1,43 @@
+package com.base.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Write-through copy of an opaque session so sessions survive restarts and can be resolved by other
+ * nodes. Keyed by the SHA-256 hash of the session id; idle tracking stays in memory.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "auth_session", indexes = {
+    @Index(name = "idx_auth_session_user", columnList = "user_id"),
+    @Index(name = "idx_auth_session_expires", columnList = "expires_at")
+})
+public class AuthSession implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -3315706950823470271L;
+
+    @Id
+    @Column(name = "session_hash", length = 64)
+    private String sessionHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "security_epoch", nullable = false)
+    private long securityEpoch;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdDate;
+
+    @Column(name = "expires_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
+}
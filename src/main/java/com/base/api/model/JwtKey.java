@@ -0,0 +1,50 @@
+package com.base.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A token signing key rotated in at runtime, shared by all nodes through the database. Holds the
+ * HMAC secret or the PKCS#8 private key, so access to this table must be restricted like the
+ * configured secrets. A row without key material only marks a configured key as retired.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "jwt_key")
+public class JwtKey implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6120925370118927712L;
+
+    @Id
+    @Column(name = "key_id", length = 64)
+    private String keyId;
+
+    @Column(name = "algorithm", nullable = false, length = 16)
+    private String algorithm;
+
+    // Base64 of the HMAC secret or of the PKCS#8 private key
+    @Column(name = "private_key", length = 4096)
+    private String privateKey;
+
+    // Base64 of the X.509 public key, asymmetric algorithms only
+    @Column(name = "public_key", length = 4096)
+    private String publicKey;
+
+    @Column(name = "activate_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date activateAt;
+
+    @Column(name = "retired_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date retiredAt;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdDate;
+}
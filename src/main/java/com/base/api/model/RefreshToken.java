@@ -0,0 +1,54 @@
+package com.base.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Server-side record of an opaque refresh token. Only the SHA-256 hash of the token is stored.
+ * Rotated tokens are kept as revoked until they expire so that replaying one can be detected.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "refresh_token", indexes = {
+    @Index(name = "uk_refresh_token_hash", columnList = "token_hash", unique = true),
+    @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+    @Index(name = "idx_refresh_token_expires", columnList = "expires_at")
+})
+public class RefreshToken implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 4120553810263410772L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdDate;
+
+    private boolean revoked;
+
+    @Override
+    public String toString() {
+        return "RefreshToken{" +
+                "id=" + id +
+                ", userId=" + userId +
+                "}";
+    }
+}
@@ -7,6 +7,8 @@ import jakarta.persistence.*;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 @Entity
@@ -20,6 +22,14 @@ public class Role implements Serializable {
     public static final String ROLE_ADMIN = "ROLE_ADMIN";
     public static final String ROLE_MODERATOR = "ROLE_MODERATOR";
 
+    // Short codes used by compact tokens; roles without a code travel under their full name
+    private static final Map<String, String> CODES = Map.of(ROLE_USER, "U", ROLE_ADMIN, "A", ROLE_MODERATOR, "M");
+    private static final Map<String, String> NAMES = new HashMap<>();
+
+    static {
+        CODES.forEach((name, code) -> NAMES.put(code, name));
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "ROLE_ID")
@@ -35,6 +45,14 @@ public class Role implements Serializable {
         this.name = name;
     }
 
+    public static String toCode(String name) {
+        return CODES.getOrDefault(name, name);
+    }
+
+    public static String fromCode(String code) {
+        return NAMES.getOrDefault(code, code);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -0,0 +1,25 @@
+package com.base.api.repo;
+
+import com.base.api.model.AuthSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface AuthSessionRepository extends JpaRepository<AuthSession, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from AuthSession s where s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from AuthSession s where s.expiresAt < :now")
+    int deleteExpired(@Param("now") Date now);
+}
@@ -0,0 +1,23 @@
+package com.base.api.repo;
+
+import com.base.api.model.JwtKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface JwtKeyRepository extends JpaRepository<JwtKey, String> {
+
+    @Query("select min(k.activateAt) from JwtKey k where k.activateAt > :now and k.retiredAt is null and k.privateKey is not null")
+    Date findNextActivation(@Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from JwtKey k where k.activateAt > :now and k.retiredAt is null and k.privateKey is not null")
+    int deletePending(@Param("now") Date now);
+}
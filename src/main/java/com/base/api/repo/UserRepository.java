@@ -1,8 +1,15 @@
 package com.base.api.repo;
 
+import com.base.api.dto.SocialProvider;
+import com.base.api.dto.UserRoleRow;
+import com.base.api.dto.UserSearchHit;
 import com.base.api.model.AppUser;
 import com.base.api.model.Role;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +28,46 @@ public interface UserRepository extends JpaRepository<AppUser, Long> {
     List<AppUser> findAllByIdNot(Long myId);
 
     Optional<AppUser> findByDisplayName(String displayName);
+
+    /**
+     * Replaces the password hash only if it is still {@code currentPassword}, so a re-encode after sign-in
+     * never overwrites a password changed in the meantime.
+     */
+    @Modifying
+    @Query("update AppUser u set u.password = :password where u.id = :id and u.password = :currentPassword")
+    int updatePassword(@Param("id") Long id, @Param("currentPassword") String currentPassword, @Param("password") String password);
+
+    /**
+     * Keyset page of user ids after {@code afterId}, ordered by id. Each filter is skipped when null.
+     * Walks the primary key index from {@code afterId}, so every page costs the same.
+     */
+    @Query("select u.id from AppUser u where u.id > :afterId " +
+        "and (:status is null or u.status = :status) " +
+        "and (:provider is null or u.provider = :provider) " +
+        "and (:roleName is null or exists (select 1 from AppUser m join m.roles mr where m = u and mr.name = :roleName)) " +
+        "order by u.id")
+    List<Long> findIdPage(@Param("afterId") long afterId, @Param("status") String status,
+                          @Param("provider") SocialProvider provider, @Param("roleName") String roleName, Limit limit);
+
+    @Query("select u.id as id, u.displayName as displayName, u.picture as picture, u.email as email, u.status as status, r.name as roleName " +
+        "from AppUser u left join u.roles r where u.id in :ids order by u.id")
+    List<UserRoleRow> findUserRoleRowsByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Users whose display name starts with {@code prefix}, in index order. Case-insensitive through
+     * the column collation; {@code prefix} must end with {@code %} and escape wildcards with {@code !}.
+     */
+    @Query("select u.id as id, u.displayName as displayName, u.email as email from AppUser u " +
+        "where u.displayName like :prefix escape '!' order by u.displayName, u.id")
+    List<UserSearchHit> findByDisplayNamePrefix(@Param("prefix") String prefix, Limit limit);
+
+    /**
+     * Same as {@link #findByDisplayNamePrefix} on the unique email index.
+     */
+    @Query("select u.id as id, u.displayName as displayName, u.email as email from AppUser u " +
+        "where u.email like :prefix escape '!' order by u.email")
+    List<UserSearchHit> findByEmailPrefix(@Param("prefix") String prefix, Limit limit);
+
+    @Query("select u.securityEpoch from AppUser u where u.id = :id")
+    Long findSecurityEpochById(@Param("id") Long id);
 }
@@ -0,0 +1,91 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.AuthFailureSummary;
+import com.base.api.util.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts authentication failures by reason and logs a sample of them. Counting is a LongAdder
+ * increment; log lines are rate limited by a token bucket so a flood of bad tokens cannot turn
+ * logging into the dominant cost. Each emitted line reports how many were suppressed before it.
+ */
+@Component
+public class AuthFailureTelemetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthFailureTelemetry.class);
+
+    private final LongAdder[] failures = new LongAdder[TokenValidationResult.Failure.values().length];
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder suppressedTotal = new LongAdder();
+    private final TokenBucket logBucket;
+    private final Date since = new Date();
+
+    public AuthFailureTelemetry(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.Auth auth = appProperties.getAuth();
+        this.logBucket = new TokenBucket(auth.getFailureLogPermitsPerSecond(), auth.getFailureLogBurst());
+        for (TokenValidationResult.Failure failure : TokenValidationResult.Failure.values()) {
+            LongAdder counter = new LongAdder();
+            failures[failure.ordinal()] = counter;
+            FunctionCounter.builder("auth.token.failures", counter, LongAdder::sum)
+                .description("Rejected bearer tokens by reason")
+                .tag("reason", failure.name())
+                .register(meterRegistry);
+        }
+        FunctionCounter.builder("auth.token.errors", errors, LongAdder::sum)
+            .description("Unexpected errors while authenticating a bearer token")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records a rejected token. Missing tokens are only counted, never logged.
+     */
+    public void recordFailure(TokenValidationResult.Failure failure, String message) {
+        failures[failure.ordinal()].increment();
+        if (failure != TokenValidationResult.Failure.MISSING && logBucket.tryAcquire()) {
+            logger.warn("Rejected JWT ({}): {}{}", failure, message, suppressedSuffix());
+        } else if (failure != TokenValidationResult.Failure.MISSING) {
+            suppress();
+        }
+    }
+
+    /**
+     * Records an unexpected exception. The stack trace is only logged for sampled occurrences.
+     */
+    public void recordError(Exception ex) {
+        errors.increment();
+        if (logBucket.tryAcquire()) {
+            logger.error("Could not set user authentication in security context{}", suppressedSuffix(), ex);
+        } else {
+            suppress();
+        }
+    }
+
+    public AuthFailureSummary getSummary() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (TokenValidationResult.Failure failure : TokenValidationResult.Failure.values()) {
+            counts.put(failure.name(), failures[failure.ordinal()].sum());
+        }
+        return new AuthFailureSummary(counts, errors.sum(), suppressedTotal.sum(), since);
+    }
+
+    private void suppress() {
+        suppressed.increment();
+        suppressedTotal.increment();
+    }
+
+    private String suppressedSuffix() {
+        long count = suppressed.sumThenReset();
+        return count > 0 ? " (" + count + " similar messages suppressed)" : "";
+    }
+}
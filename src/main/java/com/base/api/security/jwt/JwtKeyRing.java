@@ -0,0 +1,264 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds the keys used to sign and verify tokens. Keys are derived once and published as an
+ * immutable snapshot, so the hot verification path only does a volatile read and a map lookup.
+ * <p>
+ * Tokens carry the id of their signing key in the {@code kid} header. Tokens issued before key ids
+ * were introduced have no {@code kid} and are verified with the HMAC key configured at startup.
+ * <p>
+ * Besides the configured keys the ring holds keys rotated in through the shared
+ * {@link SigningKeyStore}. A rotated key is accepted for verification as soon as it is known, but
+ * only signs from its activation time, which is the same on every node. The key it replaces keeps
+ * verifying for {@code retainMsec} after that, long enough for every token it signed to expire.
+ * <p>
+ * With an asymmetric algorithm (ES256 or EdDSA) the public halves of all verification keys are
+ * published as a JWK set.
+ */
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    public record SigningKey(String keyId, Key key, SecureDigestAlgorithm<?, ?> algorithm) {
+
+        @SuppressWarnings("unchecked")
+        public JwtBuilder sign(JwtBuilder builder) {
+            return builder.header().keyId(keyId).and().signWith(key, (SecureDigestAlgorithm<Key, ?>) algorithm);
+        }
+    }
+
+    /**
+     * A key from the shared store, signing from {@code activateAt} (epoch millis).
+     */
+    public record StoredKey(SigningKey signingKey, Key verificationKey, long activateAt) {
+    }
+
+    private record VerificationKey(Key key, long notAfter) {
+    }
+
+    private record Snapshot(SigningKey signingKey, String pendingKeyId, long nextActivation,
+                            Map<String, VerificationKey> keys, Map<String, Object> jwks) {
+    }
+
+    private final SigningKey baseSigningKey;
+    private final Key baseVerificationKey;
+    private final String legacyKeyId;
+    private final Map<String, Key> configuredKeys;
+    private List<StoredKey> storedKeys = List.of();
+    private Set<String> retiredKeyIds = Set.of();
+    private long retainMsec;
+    private volatile Snapshot snapshot;
+
+    public JwtKeyRing(SigningKey signingKey, Key verificationKey, String legacyKeyId, Map<String, Key> verificationKeys) {
+        this.baseSigningKey = signingKey;
+        this.baseVerificationKey = verificationKey;
+        this.legacyKeyId = legacyKeyId;
+        this.configuredKeys = Map.copyOf(verificationKeys);
+        this.snapshot = compute(System.currentTimeMillis());
+    }
+
+    public static JwtKeyRing fromProperties(AppProperties.Auth auth) {
+        Map<String, Key> verificationKeys = new HashMap<>();
+        auth.getPreviousTokenSecrets().forEach((id, secret) -> verificationKeys.put(id, toKey(secret)));
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().forKey(auth.getSigningAlgorithm());
+        if (algorithm != Jwts.SIG.HS512 && algorithm != Jwts.SIG.ES256 && algorithm != Jwts.SIG.EdDSA) {
+            throw new IllegalStateException("Unsupported app.auth.signingAlgorithm " + auth.getSigningAlgorithm() + ", use HS512, ES256 or EdDSA");
+        }
+
+        if (algorithm == Jwts.SIG.HS512) {
+            SecretKey key = toKey(auth.getTokenSecret());
+            return new JwtKeyRing(new SigningKey(auth.getTokenKeyId(), key, algorithm), key, auth.getTokenKeyId(), verificationKeys);
+        }
+
+        // Asymmetric signing. The HMAC secret, if still configured, only verifies tokens issued before the switch.
+        if (StringUtils.hasText(auth.getTokenSecret())) {
+            verificationKeys.put(auth.getTokenKeyId(), toKey(auth.getTokenSecret()));
+        }
+        AppProperties.Asymmetric config = auth.getAsymmetric();
+        // A key pair generated here would differ on every node and be lost on restart
+        if (!StringUtils.hasText(config.getPrivateKeyFile())) {
+            throw new IllegalStateException("app.auth.asymmetric.privateKeyFile and publicKeyFile must be configured for " + algorithm.getId());
+        }
+        KeyPair keyPair = readKeyPair(config.getPrivateKeyFile(), config.getPublicKeyFile(), algorithm);
+        SigningKey signingKey = new SigningKey(thumbprint(keyPair.getPublic()), keyPair.getPrivate(), algorithm);
+        return new JwtKeyRing(signingKey, keyPair.getPublic(), auth.getTokenKeyId(), verificationKeys);
+    }
+
+    public static SecretKey toKey(String secret) {
+        if (secret == null) {
+            throw new IllegalStateException("app.auth.tokenSecret must be configured");
+        }
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeyPair generateKeyPair(SecureDigestAlgorithm<?, ?> algorithm) {
+        if (algorithm == Jwts.SIG.ES256) {
+            return Jwts.SIG.ES256.keyPair().build();
+        } else if (algorithm == Jwts.SIG.EdDSA) {
+            return Jwks.CRV.Ed25519.keyPair().build();
+        }
+        throw new IllegalArgumentException("Key pairs are not supported for " + algorithm.getId());
+    }
+
+    public static String thumbprint(PublicKey publicKey) {
+        return Jwks.builder().key(publicKey).idFromThumbprint().build().getId();
+    }
+
+    public SigningKey getSigningKey() {
+        Snapshot current = snapshot;
+        if (current.nextActivation() <= System.currentTimeMillis()) {
+            activateDue();
+            current = snapshot;
+        }
+        return current.signingKey();
+    }
+
+    public SecureDigestAlgorithm<?, ?> getAlgorithm() {
+        return baseSigningKey.algorithm();
+    }
+
+    public boolean isAsymmetric() {
+        return !(baseSigningKey.key() instanceof SecretKey);
+    }
+
+    public Set<String> getKeyIds() {
+        return snapshot.keys().keySet();
+    }
+
+    public boolean hasKey(String keyId) {
+        return snapshot.keys().containsKey(keyId);
+    }
+
+    /**
+     * @return the id of the key waiting for its activation time, or null
+     */
+    public String getPendingKeyId() {
+        return snapshot.pendingKeyId();
+    }
+
+    /**
+     * @return the public verification keys as a JWK set document, ready to be serialized
+     */
+    public Map<String, Object> getJwks() {
+        return snapshot.jwks();
+    }
+
+    /**
+     * Replaces the rotated keys with the current content of the shared store.
+     *
+     * @param retainMsec how long a replaced signing key stays valid for verification
+     */
+    public synchronized void sync(List<StoredKey> keys, Set<String> retired, long retainMsec) {
+        this.storedKeys = keys.stream().sorted(Comparator.comparingLong(StoredKey::activateAt)).toList();
+        this.retiredKeyIds = Set.copyOf(retired);
+        this.retainMsec = retainMsec;
+        this.snapshot = compute(System.currentTimeMillis());
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        Snapshot current = snapshot;
+        String keyId = header.getKeyId() != null ? header.getKeyId() : legacyKeyId;
+        VerificationKey entry = current.keys().get(keyId);
+        if (entry == null || entry.notAfter() < System.currentTimeMillis()) {
+            throw new InvalidKeyException("Unknown JWT signing key id: " + keyId);
+        }
+        return entry.key();
+    }
+
+    private synchronized void activateDue() {
+        if (snapshot.nextActivation() <= System.currentTimeMillis()) {
+            snapshot = compute(System.currentTimeMillis());
+        }
+    }
+
+    private Snapshot compute(long now) {
+        Map<String, VerificationKey> keys = new HashMap<>();
+        configuredKeys.forEach((id, key) -> {
+            if (!retiredKeyIds.contains(id)) {
+                keys.put(id, new VerificationKey(key, Long.MAX_VALUE));
+            }
+        });
+        if (!retiredKeyIds.contains(baseSigningKey.keyId())) {
+            keys.put(baseSigningKey.keyId(), new VerificationKey(baseVerificationKey, Long.MAX_VALUE));
+        }
+        SigningKey signingKey = baseSigningKey;
+        String pendingKeyId = null;
+        long nextActivation = Long.MAX_VALUE;
+        for (StoredKey stored : storedKeys) {
+            String keyId = stored.signingKey().keyId();
+            if (retiredKeyIds.contains(keyId)) {
+                continue;
+            }
+            keys.put(keyId, new VerificationKey(stored.verificationKey(), Long.MAX_VALUE));
+            if (stored.activateAt() <= now) {
+                VerificationKey previous = keys.get(signingKey.keyId());
+                if (previous != null) {
+                    keys.put(signingKey.keyId(), new VerificationKey(previous.key(), stored.activateAt() + retainMsec));
+                }
+                signingKey = stored.signingKey();
+            } else if (pendingKeyId == null) {
+                pendingKeyId = keyId;
+                nextActivation = stored.activateAt();
+            }
+        }
+        List<Map<String, ?>> jwks = new ArrayList<>();
+        keys.forEach((id, entry) -> {
+            if (entry.key() instanceof PublicKey publicKey && entry.notAfter() > now) {
+                jwks.add(new LinkedHashMap<>(Jwks.builder().key(publicKey).id(id).publicKeyUse("sig").build()));
+            }
+        });
+        return new Snapshot(signingKey, pendingKeyId, nextActivation, Map.copyOf(keys), Map.of("keys", List.copyOf(jwks)));
+    }
+
+    private static KeyPair readKeyPair(String privateKeyFile, String publicKeyFile, SecureDigestAlgorithm<?, ?> algorithm) {
+        if (!StringUtils.hasText(publicKeyFile)) {
+            throw new IllegalStateException("app.auth.asymmetric.publicKeyFile must be configured together with the private key");
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm == Jwts.SIG.ES256 ? "EC" : "EdDSA");
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(privateKeyFile)));
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(readPem(publicKeyFile)));
+            return new KeyPair(publicKey, privateKey);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load JWT signing key pair", e);
+        }
+    }
+
+    private static byte[] readPem(String file) throws IOException {
+        String pem = Files.readString(Paths.get(file), StandardCharsets.US_ASCII);
+        String body = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(body);
+    }
+}
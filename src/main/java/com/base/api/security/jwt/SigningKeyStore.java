@@ -0,0 +1,166 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import com.base.api.model.JwtKey;
+import com.base.api.repo.JwtKeyRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the signing keys rotated in at runtime in the {@code jwt_key} table and mirrors them into the
+ * {@link JwtKeyRing} of every node. Keys are generated here, never supplied by the caller, and a new
+ * key only starts signing after every node has had two sync intervals to learn it. Because every
+ * node reloads the table on startup and every {@code syncIntervalMsec}, a rotation survives restarts
+ * and tokens signed by any node verify on all of them.
+ */
+@Slf4j
+@Component
+public class SigningKeyStore {
+
+    private final JwtKeyRing keyRing;
+    private final JwtKeyRepository jwtKeyRepository;
+    private final AppProperties.Auth auth;
+    private final SecureRandom random = new SecureRandom();
+
+    public SigningKeyStore(TokenProvider tokenProvider, JwtKeyRepository jwtKeyRepository, AppProperties appProperties) {
+        this.keyRing = tokenProvider.getKeyRing();
+        this.jwtKeyRepository = jwtKeyRepository;
+        this.auth = appProperties.getAuth();
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${app.auth.keyStore.syncIntervalMsec:10000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        List<JwtKeyRing.StoredKey> stored = new ArrayList<>();
+        Set<String> retired = new HashSet<>();
+        for (JwtKey row : jwtKeyRepository.findAll()) {
+            if (row.getRetiredAt() != null && row.getRetiredAt().getTime() <= now) {
+                retired.add(row.getKeyId());
+            } else if (row.getPrivateKey() != null) {
+                stored.add(toStoredKey(row));
+            }
+        }
+        keyRing.sync(stored, retired, auth.getTokenExpirationMsec());
+    }
+
+    /**
+     * Generates a new signing key and schedules its activation. A key still waiting for activation
+     * never signed anything, so it is replaced rather than kept, as long as every node can learn
+     * about the replacement before the key would activate.
+     *
+     * @param keyId id for the new key, or null to derive one
+     * @return the id of the new key
+     * @throws IllegalStateException if the id is taken or the pending key activates too soon to be replaced safely
+     */
+    public String rotate(String keyId) {
+        long now = System.currentTimeMillis();
+        long syncInterval = auth.getKeyStore().getSyncIntervalMsec();
+        Date nextActivation = jwtKeyRepository.findNextActivation(new Date(now));
+        // A node that has not synced the replacement by then would start signing with the deleted key
+        if (nextActivation != null && nextActivation.getTime() <= now + syncInterval) {
+            throw new IllegalStateException("The pending key activates within " + syncInterval + " ms; rotate again once it is active");
+        }
+
+        SecureDigestAlgorithm<?, ?> algorithm = keyRing.getAlgorithm();
+        JwtKey row = new JwtKey();
+        row.setAlgorithm(algorithm.getId());
+        if (keyRing.isAsymmetric()) {
+            KeyPair keyPair = JwtKeyRing.generateKeyPair(algorithm);
+            row.setKeyId(StringUtils.hasText(keyId) ? keyId : JwtKeyRing.thumbprint(keyPair.getPublic()));
+            row.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+            row.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        } else {
+            byte[] secret = new byte[64];
+            random.nextBytes(secret);
+            row.setKeyId(StringUtils.hasText(keyId) ? keyId : randomKeyId());
+            row.setPrivateKey(Base64.getEncoder().encodeToString(secret));
+        }
+        if (keyRing.hasKey(row.getKeyId()) || jwtKeyRepository.existsById(row.getKeyId())) {
+            throw new IllegalStateException("Key id " + row.getKeyId() + " already exists");
+        }
+        long activationDelay = 2 * syncInterval;
+        if (keyRing.isAsymmetric()) {
+            activationDelay = Math.max(activationDelay, auth.getAsymmetric().getActivationDelayMsec());
+        }
+        row.setActivateAt(new Date(now + activationDelay));
+        row.setCreatedDate(new Date(now));
+
+        int replaced = jwtKeyRepository.deletePending(new Date(now));
+        if (replaced > 0) {
+            log.info("Replaced {} pending signing key(s)", replaced);
+        }
+        jwtKeyRepository.saveAndFlush(row);
+        sync();
+        return row.getKeyId();
+    }
+
+    /**
+     * Stops accepting tokens signed with {@code keyId} on every node. Neither the current nor the pending signing key can be retired.
+     */
+    public boolean retire(String keyId) {
+        if (!keyRing.hasKey(keyId) || keyId.equals(keyRing.getSigningKey().keyId()) || keyId.equals(keyRing.getPendingKeyId())) {
+            return false;
+        }
+        Date now = new Date();
+        JwtKey row = jwtKeyRepository.findById(keyId).orElseGet(() -> {
+            // A configured key has no row yet; record only the retirement
+            JwtKey marker = new JwtKey();
+            marker.setKeyId(keyId);
+            marker.setAlgorithm(keyRing.getAlgorithm().getId());
+            marker.setActivateAt(now);
+            marker.setCreatedDate(now);
+            return marker;
+        });
+        row.setRetiredAt(now);
+        jwtKeyRepository.saveAndFlush(row);
+        sync();
+        return true;
+    }
+
+    private JwtKeyRing.StoredKey toStoredKey(JwtKey row) {
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().forKey(row.getAlgorithm());
+        byte[] material = Base64.getDecoder().decode(row.getPrivateKey());
+        Key signingKey;
+        Key verificationKey;
+        if (algorithm == Jwts.SIG.HS512) {
+            signingKey = Keys.hmacShaKeyFor(material);
+            verificationKey = signingKey;
+        } else {
+            try {
+                KeyFactory keyFactory = KeyFactory.getInstance(algorithm == Jwts.SIG.ES256 ? "EC" : "EdDSA");
+                signingKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(material));
+                verificationKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(row.getPublicKey())));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not load signing key " + row.getKeyId(), e);
+            }
+        }
+        return new JwtKeyRing.StoredKey(new JwtKeyRing.SigningKey(row.getKeyId(), signingKey, algorithm), verificationKey, row.getActivateAt().getTime());
+    }
+
+    private String randomKeyId() {
+        byte[] bytes = new byte[9];
+        random.nextBytes(bytes);
+        return "k-" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -1,9 +1,12 @@
 package com.base.api.security.jwt;
 
+import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
+import com.base.api.security.session.SessionStore;
 import com.base.api.service.LocalUserDetailService;
+import com.base.api.service.SecurityEpochService;
+import com.base.api.service.UserActivityRecorder;
 import io.jsonwebtoken.Claims;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,20 +30,46 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private LocalUserDetailService customUserDetailsService;
 
-    private static final Logger logger = LoggerFactory.getLogger(TokenAuthenticationFilter.class);
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private SecurityEpochService securityEpochService;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private AuthFailureTelemetry authFailureTelemetry;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private UserActivityRecorder userActivityRecorder;
+
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain)
         throws ServletException, IOException {
-        try {
-            String jwt = getJwtFromRequest(request);
-            UsernamePasswordAuthenticationToken authentication = getAuthentication(jwt);
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-        } catch (Exception ex) {
-            logger.error("Could not set user authentication in security context", ex);
+        String jwt = getJwtFromRequest(request);
+        // A missing token is only a failure if the endpoint needs one; RestAuthenticationEntryPoint counts those
+        if (jwt != null) {
+            try {
+                UsernamePasswordAuthenticationToken authentication = getAuthentication(jwt);
+                if (authentication != null) {
+                    authentication.setDetails(DETAILS_SOURCE.buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    if (authentication.getPrincipal() instanceof LocalUser localUser) {
+                        userActivityRecorder.recordSeen(localUser.getUser().getId());
+                    }
+                }
+            } catch (Exception ex) {
+                authFailureTelemetry.recordError(ex);
+            }
         }
 
         filterChain.doFilter(request, response);
@@ -48,15 +77,65 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
 
     public UsernamePasswordAuthenticationToken getAuthentication(String jwt) {
-        if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-            Claims claims = tokenProvider.getClaimsFromToken(jwt);
-            UserDetails userDetails = customUserDetailsService.loadUserById(Long.parseLong(claims.getSubject()));
-            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        if (!StringUtils.hasText(jwt)) {
+            return null;
         }
-        return null;
+        if (appProperties.getAuth().getTokenMode() == AppProperties.TokenMode.OPAQUE && SessionStore.isSessionId(jwt)) {
+            return getSessionAuthentication(jwt);
+        }
+        String cacheKey = verifiedTokenCache.isEnabled() ? verifiedTokenCache.keyFor(jwt) : null;
+        if (cacheKey != null) {
+            VerifiedTokenCache.Entry cached = verifiedTokenCache.get(cacheKey);
+            if (cached != null) {
+                if (tokenProvider.isRevoked(cached.tokenId()) || !securityEpochService.isCurrent(cached.userId(), cached.securityEpoch())) {
+                    verifiedTokenCache.invalidate(cacheKey);
+                    authFailureTelemetry.recordFailure(TokenValidationResult.Failure.REVOKED, "token revoked or outdated for user " + cached.userId());
+                    return null;
+                }
+                return new UsernamePasswordAuthenticationToken(cached.principal(), null, cached.principal().getAuthorities());
+            }
+        }
+        TokenValidationResult result = tokenProvider.verifyToken(jwt);
+        if (!result.isValid()) {
+            authFailureTelemetry.recordFailure(result.failure(), result.message());
+            return null;
+        }
+        Claims claims = result.claims();
+        if (tokenProvider.isRevoked(claims.getId())) {
+            authFailureTelemetry.recordFailure(TokenValidationResult.Failure.REVOKED, "token " + claims.getId() + " was revoked");
+            return null;
+        }
+        long userId = Long.parseLong(claims.getSubject());
+        Number epochClaim = claims.get("epoch", Number.class);
+        long epoch = epochClaim != null ? epochClaim.longValue() : 0;
+        if (!securityEpochService.isCurrent(userId, epoch)) {
+            authFailureTelemetry.recordFailure(TokenValidationResult.Failure.REVOKED, "token for user " + userId + " predates its latest security change");
+            return null;
+        }
+        UserDetails userDetails = appProperties.getAuth().isStatelessPrincipal()
+            ? customUserDetailsService.loadUserFromClaims(claims)
+            : customUserDetailsService.loadUserById(userId);
+        if (cacheKey != null) {
+            verifiedTokenCache.put(cacheKey, userDetails, userId, epoch, claims.getId(), claims.getExpiration());
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    private UsernamePasswordAuthenticationToken getSessionAuthentication(String sessionId) {
+        SessionStore.Session session = sessionStore.get(sessionId);
+        if (session == null) {
+            authFailureTelemetry.recordFailure(TokenValidationResult.Failure.UNKNOWN_SESSION, "unknown or expired session");
+            return null;
+        }
+        if (!securityEpochService.isCurrent(session.userId(), session.securityEpoch())) {
+            sessionStore.revoke(sessionId);
+            authFailureTelemetry.recordFailure(TokenValidationResult.Failure.REVOKED, "session for user " + session.userId() + " predates its latest security change");
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(session.principal(), null, session.principal().getAuthorities());
     }
 
-    private String getJwtFromRequest(HttpServletRequest request) {
+    public static String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
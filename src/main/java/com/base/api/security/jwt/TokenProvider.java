@@ -2,66 +2,169 @@ package com.base.api.security.jwt;
 
 import com.base.api.config.AppProperties;
 import com.base.api.dto.LocalUser;
+import com.base.api.model.AppUser;
 import com.base.api.model.Role;
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class TokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
     private final AppProperties appProperties;
+    private final JwtKeyRing keyRing;
+    private final JwtParser jwtParser;
+    private final TokenRevocationStore revocationStore;
 
-    public TokenProvider(AppProperties appProperties) {
+    private final DistributionSummary tokenSize;
+    private final Counter tokenBudgetExceeded;
+
+    public TokenProvider(AppProperties appProperties, TokenRevocationStore revocationStore, MeterRegistry meterRegistry) {
         this.appProperties = appProperties;
+        this.revocationStore = revocationStore;
+        this.tokenSize = DistributionSummary.builder("auth.token.size")
+            .description("Size of issued access tokens")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.tokenBudgetExceeded = Counter.builder("auth.token.budget.exceeded")
+            .description("Tokens that did not fit app.auth.maxTokenBytes with the configured claim profile")
+            .register(meterRegistry);
+        this.keyRing = JwtKeyRing.fromProperties(appProperties.getAuth());
+        this.jwtParser = Jwts.parser().keyLocator(keyRing).build();
     }
 
     public String createToken(Authentication authentication) {
-        LocalUser userPrincipal = (LocalUser) authentication.getPrincipal();
+        return createToken((LocalUser) authentication.getPrincipal());
+    }
+
+    /**
+     * Issues a token with the configured claim profile. A FULL token that would exceed
+     * {@code app.auth.maxTokenBytes} (typically because of a long picture URL) is reissued with the
+     * MINIMAL profile; if even that does not fit, issuance fails.
+     */
+    public String createToken(LocalUser userPrincipal) {
+        AppProperties.Auth auth = appProperties.getAuth();
+        String token = buildToken(userPrincipal.getUser(), auth.getClaimProfile());
+        if (token.length() > auth.getMaxTokenBytes() && auth.getClaimProfile() != AppProperties.ClaimProfile.MINIMAL) {
+            tokenBudgetExceeded.increment();
+            logger.warn("Token for user {} is {} bytes, over the {} byte budget; issuing a minimal token instead",
+                userPrincipal.getUser().getId(), token.length(), auth.getMaxTokenBytes());
+            token = buildToken(userPrincipal.getUser(), AppProperties.ClaimProfile.MINIMAL);
+        }
+        if (token.length() > auth.getMaxTokenBytes()) {
+            tokenBudgetExceeded.increment();
+            throw new IllegalStateException("Token of " + token.length() + " bytes exceeds the " + auth.getMaxTokenBytes() + " byte budget");
+        }
+        tokenSize.record(token.length());
+        return token;
+    }
+
+    private String buildToken(AppUser user, AppProperties.ClaimProfile profile) {
+        JwtKeyRing.SigningKey signingKey = keyRing.getSigningKey();
 
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + appProperties.getAuth().getTokenExpirationMsec());
 
-        return Jwts.builder()
-            .claim("sub", Long.toString(userPrincipal.getUser().getId()))
-            .claim("iat", now.getTime())
-            .claim("exp", expiryDate.getTime())
-            .claim("email", userPrincipal.getUser().getEmail())
-            .claim("displayName", userPrincipal.getUser().getDisplayName())
-            .claim("provider", userPrincipal.getUser().getProvider())
-            .claim("roles", userPrincipal.getUser().getRoles().stream().map(Role::getName).toArray(String[]::new))
-            .claim("picture", userPrincipal.getUser().getPicture())
-            .signWith(Keys.hmacShaKeyFor(appProperties.getAuth().getTokenSecret().getBytes()), Jwts.SIG.HS512)
-            .compact();
+        JwtBuilder builder = Jwts.builder()
+            .id(UUID.randomUUID().toString())
+            .subject(Long.toString(user.getId()))
+            .issuedAt(now)
+            .expiration(expiryDate)
+            .claim("epoch", user.getSecurityEpoch());
+        if (profile == AppProperties.ClaimProfile.MINIMAL) {
+            // Profile data is left to /api/profile; roles travel as one-letter codes
+            builder.claim("rl", user.getRoles().stream().map(role -> Role.toCode(role.getName())).toArray(String[]::new));
+        } else {
+            builder.claim("email", user.getEmail())
+                .claim("displayName", user.getDisplayName())
+                .claim("provider", user.getProvider())
+                .claim("roles", user.getRoles().stream().map(Role::getName).toArray(String[]::new))
+                .claim("picture", user.getPicture());
+        }
+        return signingKey.sign(builder).compact();
     }
 
+    /**
+     * Parses and verifies the token exactly once, returning either the verified claims or the
+     * reason it was rejected. Never throws for bad input.
+     */
+    public TokenValidationResult verifyToken(String token) {
+        if (!StringUtils.hasText(token)) {
+            return TokenValidationResult.missing();
+        }
+        try {
+            return TokenValidationResult.valid(jwtParser.parseSignedClaims(token).getPayload());
+        } catch (ExpiredJwtException ex) {
+            return TokenValidationResult.invalid(TokenValidationResult.Failure.EXPIRED, ex.getMessage());
+        } catch (SecurityException ex) {
+            return TokenValidationResult.invalid(TokenValidationResult.Failure.BAD_SIGNATURE, ex.getMessage());
+        } catch (UnsupportedJwtException ex) {
+            return TokenValidationResult.invalid(TokenValidationResult.Failure.UNSUPPORTED, ex.getMessage());
+        } catch (JwtException | IllegalArgumentException ex) {
+            // MalformedJwtException and anything else the parser rejects; the type tells them apart when debugging
+            logger.debug("Rejected JWT as malformed: {}", ex.toString());
+            return TokenValidationResult.invalid(TokenValidationResult.Failure.MALFORMED, ex.getMessage());
+        }
+    }
 
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-            .verifyWith(Keys.hmacShaKeyFor(appProperties.getAuth().getTokenSecret().getBytes()))
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(appProperties.getAuth().getTokenSecret().getBytes()))
-                .build()
-                .parseSignedClaims(authToken);
-
-            return true;
-        } catch (Exception ex) {
-            logger.error("Invalid JWT token: {}", ex.getMessage());
+        TokenValidationResult result = verifyToken(authToken);
+        if (!result.isValid()) {
+            logger.debug("Invalid JWT token: {}", result.message());
+        }
+        return result.isValid();
+    }
+
+    /**
+     * Adds the token's {@code jti} to the denylist until the token expires.
+     *
+     * @return false if the token is not valid or carries no id, in which case there is nothing to revoke
+     */
+    public boolean revokeToken(String token) {
+        TokenValidationResult result = verifyToken(token);
+        if (!result.isValid() || result.claims().getId() == null) {
             return false;
         }
+        revocationStore.revoke(result.claims().getId(), result.claims().getExpiration().getTime());
+        return true;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return revocationStore.isRevoked(tokenId);
+    }
+
+    public Map<String, Object> getJwks() {
+        return keyRing.getJwks();
+    }
+
+    public Set<String> getKeyIds() {
+        return keyRing.getKeyIds();
+    }
+
+    JwtKeyRing getKeyRing() {
+        return keyRing;
     }
 }
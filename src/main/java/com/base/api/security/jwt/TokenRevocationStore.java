@@ -0,0 +1,176 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import com.base.api.util.BloomFilter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked token ids ({@code jti}). A Bloom filter sits in front of the exact set so the
+ * overwhelmingly common "not revoked" answer costs a few array reads and no allocation.
+ * <p>
+ * An entry is only needed until the token it revokes would have expired; a scheduled purge drops
+ * expired entries, rebuilds the filter and compacts the optional append-only journal that lets the
+ * denylist survive restarts.
+ * <p>
+ * The denylist is per node. Behind a load balancer a token revoked on one node is still accepted by
+ * the others until it expires, so multi-node deployments should keep access tokens short-lived or
+ * rely on the per-user security epoch, which is stored in the database.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final AppProperties.Revocation config;
+    private final Path journal;
+    private volatile BloomFilter filter;
+    private BufferedWriter journalWriter;
+
+    public TokenRevocationStore(AppProperties appProperties) {
+        this.config = appProperties.getAuth().getRevocation();
+        this.journal = StringUtils.hasText(config.getJournalFile()) ? Paths.get(config.getJournalFile()) : null;
+        // A relative path would resolve against whatever directory the process happened to start in
+        if (journal != null && !journal.isAbsolute()) {
+            throw new IllegalStateException("app.auth.revocation.journalFile must be an absolute path: " + journal);
+        }
+        load();
+        this.filter = buildFilter();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    public synchronized void revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revoked.putIfAbsent(tokenId, expiresAtMillis) == null) {
+            filter.put(tokenId);
+            append(tokenId, expiresAtMillis);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocation.purgeIntervalMsec:60000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            filter = buildFilter();
+            compactJournal();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    private BloomFilter buildFilter() {
+        BloomFilter bloomFilter = new BloomFilter(Math.max(config.getExpectedRevocations(), revoked.size() * 2), config.getFalsePositiveRate());
+        revoked.keySet().forEach(bloomFilter::put);
+        return bloomFilter;
+    }
+
+    private void load() {
+        if (journal == null || !Files.exists(journal)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                int separator = line.indexOf(' ');
+                if (separator <= 0) {
+                    continue;
+                }
+                try {
+                    long expiresAt = Long.parseLong(line.substring(separator + 1).trim());
+                    if (expiresAt > now) {
+                        revoked.put(line.substring(0, separator), expiresAt);
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Skipping corrupt revocation journal entry: {}", line);
+                }
+            }
+            logger.info("Loaded {} revoked tokens from {}", revoked.size(), journal);
+        } catch (IOException e) {
+            logger.error("Could not read revocation journal {}", journal, e);
+        }
+    }
+
+    private void append(String tokenId, long expiresAtMillis) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (journalWriter == null) {
+                Path parent = journal.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                journalWriter = Files.newBufferedWriter(journal, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            journalWriter.write(tokenId + ' ' + expiresAtMillis);
+            journalWriter.newLine();
+            journalWriter.flush();
+        } catch (IOException e) {
+            logger.error("Could not append to revocation journal {}", journal, e);
+            closeWriter();
+        }
+    }
+
+    private void compactJournal() {
+        if (journal == null) {
+            return;
+        }
+        closeWriter();
+        Path tmp = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                writer.write(entry.getKey() + ' ' + entry.getValue());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            logger.error("Could not compact revocation journal {}", journal, e);
+            return;
+        }
+        try {
+            Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Could not replace revocation journal {}", journal, e);
+        }
+    }
+
+    private void closeWriter() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+                logger.warn("Could not close revocation journal {}", journal, e);
+            }
+            journalWriter = null;
+        }
+    }
+}
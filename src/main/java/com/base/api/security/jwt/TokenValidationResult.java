@@ -0,0 +1,40 @@
+package com.base.api.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of a single parse-and-verify pass over a JWT. Either carries the verified
+ * {@link Claims} or the reason the token was rejected, so callers never have to parse twice.
+ */
+public record TokenValidationResult(Claims claims, Failure failure, String message) {
+
+    public enum Failure {
+        MISSING,
+        EXPIRED,
+        BAD_SIGNATURE,
+        MALFORMED,
+        UNSUPPORTED,
+        // Signature is fine but the token was revoked or predates the user's latest security change
+        REVOKED,
+        // Opaque session id that is unknown, idle for too long or past its absolute lifetime
+        UNKNOWN_SESSION
+    }
+
+    private static final TokenValidationResult MISSING_TOKEN = new TokenValidationResult(null, Failure.MISSING, "JWT token is missing");
+
+    public static TokenValidationResult valid(Claims claims) {
+        return new TokenValidationResult(claims, null, null);
+    }
+
+    public static TokenValidationResult invalid(Failure failure, String message) {
+        return new TokenValidationResult(null, failure, message);
+    }
+
+    public static TokenValidationResult missing() {
+        return MISSING_TOKEN;
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,98 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers tokens that already passed signature verification, together with the principal they
+ * resolved to. A hit skips both the HMAC check and the user lookup. Entries are keyed by a SHA-256
+ * digest of the token, so raw bearer tokens are never retained, and expire at the token's
+ * {@code exp} claim or after {@code maxTtlMsec}, whichever comes first.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public record Entry(UserDetails principal, long userId, long securityEpoch, String tokenId, long expiresAtMillis) {
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+
+    public VerifiedTokenCache(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.TokenCache config = appProperties.getAuth().getTokenCache();
+        this.enabled = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(config.getMaxTtlMsec())))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String keyFor(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    public Entry get(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String key, UserDetails principal, long userId, long securityEpoch, String tokenId, Date expiration) {
+        if (enabled && expiration != null && expiration.getTime() > System.currentTimeMillis()) {
+            cache.put(key, new Entry(principal, userId, securityEpoch, tokenId, expiration.getTime()));
+        }
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(entry.expiresAtMillis() - System.currentTimeMillis());
+            return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.base.api.security.oauth2;
 
 import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
 import com.base.api.exception.BadRequestException;
 import com.base.api.security.jwt.TokenProvider;
+import com.base.api.security.session.SessionStore;
+import com.base.api.service.RefreshTokenService;
+import com.base.api.service.UserActivityRecorder;
 import com.base.api.util.CookieUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -28,12 +32,26 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
 
     private final HttpCookieOAuth2AuthorizationRequestRepository httpCookieOAuth2AuthorizationRequestRepository;
 
+    private final RefreshTokenService refreshTokenService;
+
+    private final SessionStore sessionStore;
+
+    private final UserActivityRecorder userActivityRecorder;
+
+    private final RefreshTokenCookie refreshTokenCookie;
+
     @Autowired
     OAuth2AuthenticationSuccessHandler(TokenProvider tokenProvider, AppProperties appProperties,
-                                       HttpCookieOAuth2AuthorizationRequestRepository httpCookieOAuth2AuthorizationRequestRepository) {
+                                       HttpCookieOAuth2AuthorizationRequestRepository httpCookieOAuth2AuthorizationRequestRepository,
+                                       RefreshTokenService refreshTokenService, SessionStore sessionStore,
+                                       UserActivityRecorder userActivityRecorder, RefreshTokenCookie refreshTokenCookie) {
         this.tokenProvider = tokenProvider;
         this.appProperties = appProperties;
         this.httpCookieOAuth2AuthorizationRequestRepository = httpCookieOAuth2AuthorizationRequestRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.sessionStore = sessionStore;
+        this.userActivityRecorder = userActivityRecorder;
+        this.refreshTokenCookie = refreshTokenCookie;
     }
 
     @Override
@@ -59,7 +77,14 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
 
         String targetUrl = redirectUri.orElse(getDefaultTargetUrl());
 
+        LocalUser localUser = (LocalUser) authentication.getPrincipal();
+        userActivityRecorder.recordLogin(localUser.getUser().getId());
+        if (appProperties.getAuth().getTokenMode() == AppProperties.TokenMode.OPAQUE) {
+            return UriComponentsBuilder.fromUriString(targetUrl).queryParam("token", sessionStore.create(localUser)).build().toUriString();
+        }
+
         String token = tokenProvider.createToken(authentication);
+        refreshTokenCookie.write(response, refreshTokenService.issue(localUser.getUser().getId()));
 
         return UriComponentsBuilder.fromUriString(targetUrl).queryParam("token", token).build().toUriString();
     }
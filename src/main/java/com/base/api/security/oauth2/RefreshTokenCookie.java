@@ -0,0 +1,40 @@
+package com.base.api.security.oauth2;
+
+import com.base.api.config.AppProperties;
+import com.base.api.util.CookieUtils;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Carries the refresh token of a social sign-in in an HttpOnly cookie scoped to the refresh
+ * endpoint. The access token still travels in the redirect URL, but the long-lived refresh token
+ * never does, so it cannot leak through browser history, proxy logs or the Referer header.
+ */
+@Component
+public class RefreshTokenCookie {
+
+    private final AppProperties.Auth auth;
+
+    public RefreshTokenCookie(AppProperties appProperties) {
+        this.auth = appProperties.getAuth();
+    }
+
+    public void write(HttpServletResponse response, String refreshToken) {
+        AppProperties.RefreshCookie config = auth.getRefreshCookie();
+        CookieUtils.addCookie(response, config.getName(), refreshToken, auth.getRefreshTokenExpirationMsec() / 1000,
+            config.getPath(), config.isSecure(), config.getSameSite());
+    }
+
+    public Optional<String> read(HttpServletRequest request) {
+        return CookieUtils.getCookie(request, auth.getRefreshCookie().getName()).map(Cookie::getValue).filter(value -> !value.isEmpty());
+    }
+
+    public void clear(HttpServletResponse response) {
+        AppProperties.RefreshCookie config = auth.getRefreshCookie();
+        CookieUtils.addCookie(response, config.getName(), "", 0, config.getPath(), config.isSecure(), config.getSameSite());
+    }
+}
@@ -0,0 +1,52 @@
+package com.base.api.security.password;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost for this node by timing hashes on the current CPU. Each step up doubles the
+ * work, so costs are tried from {@code minCost} upwards and the last one that stays within the
+ * target latency wins.
+ */
+@Slf4j
+public final class PasswordCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+    private static final int SAMPLES = 3;
+
+    private PasswordCostCalibrator() {
+    }
+
+    /**
+     * @return the highest cost in {@code [minCost, maxCost]} whose hash takes at most {@code targetMsec},
+     * or {@code minCost} if even that is slower
+     */
+    public static int calibrate(long targetMsec, int minCost, int maxCost) {
+        // Let the JIT compile the hashing loop before anything is measured
+        for (int i = 0; i < SAMPLES; i++) {
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(minCost));
+        }
+        int chosen = minCost;
+        long chosenMsec = measure(minCost);
+        for (int cost = minCost + 1; cost <= maxCost && chosenMsec * 2 <= targetMsec; cost++) {
+            long elapsed = measure(cost);
+            if (elapsed > targetMsec) {
+                break;
+            }
+            chosen = cost;
+            chosenMsec = elapsed;
+        }
+        log.info("Calibrated BCrypt cost {} ({} ms per hash, target {} ms)", chosen, chosenMsec, targetMsec);
+        return chosen;
+    }
+
+    private static long measure(int cost) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(cost));
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,113 @@
+package com.base.api.security.password;
+
+import com.base.api.config.AppProperties;
+import com.base.api.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a fixed pool sized to the CPU, in front of a bounded FIFO queue. A burst
+ * of sign-ins can then use at most those cores, and other requests keep running. Work that cannot
+ * be queued, or that waits longer than {@code maxWaitMsec} for a thread, fails with
+ * {@link PasswordHashingUnavailableException}, which is answered with 503 and Retry-After.
+ * <p>
+ * The wait is measured by the task itself when a thread picks it up, and a task that waited too long
+ * is dropped without hashing. {@code maxWaitMsec} therefore bounds the queueing delay only: a caller
+ * waits at most that long plus one hash, and a hash that has started always completes.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMsec;
+    private final long retryAfterSeconds;
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.PasswordHashing config = appProperties.getAuth().getPasswordHashing();
+        int threads = config.getThreads() > 0 ? config.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.maxWaitMsec = config.getMaxWaitMsec();
+        this.retryAfterSeconds = config.getRetryAfterSeconds();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Fair queue so waiting callers are served in arrival order
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getQueueCapacity(), true),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("auth.hashing.queue", executor, pool -> pool.getQueue().size())
+            .description("Password hashing tasks waiting for a thread")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.hashing.wait")
+            .description("Time password hashing tasks spent queued")
+            .register(meterRegistry);
+        this.hashTimer = Timer.builder("auth.hashing.duration")
+            .description("Time spent computing password hashes")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+            .description("Password hashing tasks rejected because the executor was saturated")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on the hashing pool and waits for its result.
+     *
+     * @throws PasswordHashingUnavailableException if the queue is full or the task waited too long to start
+     */
+    public <T> T execute(Supplier<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - submitted;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > TimeUnit.MILLISECONDS.toNanos(maxWaitMsec)) {
+                    throw saturated();
+                }
+                return hashTimer.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            throw saturated();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw saturated();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private PasswordHashingUnavailableException saturated() {
+        rejected.increment();
+        return new PasswordHashingUnavailableException("Too many concurrent sign-ins, please retry shortly", retryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,262 @@
+package com.base.api.security.session;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
+import com.base.api.model.AuthSession;
+import com.base.api.repo.AuthSessionRepository;
+import com.base.api.service.LocalUserDetailService;
+import com.base.api.service.SecurityEpochService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side store for opaque access tokens: 128-bit random ids mapped to a session record. A
+ * lookup is a hash-map read with no cryptography, and revoking a session takes effect immediately
+ * on the node that revokes it.
+ * <p>
+ * Disabling a user or changing their email or roles bumps their security epoch, which drops all of
+ * their sessions on this node once the change commits. Other nodes reject those sessions as soon as
+ * they see the new epoch, within {@code app.auth.securityEpochTtlMsec}. With {@code writeThrough}, a
+ * session revoked on another node, for instance by a logout, ends here at the next check against
+ * the table, at most {@code recheckIntervalMsec} later. Without it, sessions are local to each node.
+ * <p>
+ * Sessions are spread over independent stripes so the periodic sweep can walk one stripe at a
+ * time. Sessions end after {@code idleTimeoutMsec} without use or {@code absoluteTimeoutMsec}
+ * after creation. With {@code writeThrough} enabled every session is also stored in the
+ * {@code auth_session} table and lazily reloaded on a miss, e.g. after a restart. Ids that are
+ * malformed never reach the table, and ids the table does not know are remembered for
+ * {@code missCacheTtlMsec}, so replaying a bogus bearer value does not cost a query per request.
+ */
+@Slf4j
+@Component
+public class SessionStore {
+
+    public static final class Session {
+        private final LocalUser principal;
+        private final long userId;
+        private final long securityEpoch;
+        private final long absoluteExpiry;
+        private volatile long lastAccess;
+        private volatile long checkedAt;
+
+        private Session(LocalUser principal, long userId, long securityEpoch, long absoluteExpiry, long lastAccess) {
+            this.principal = principal;
+            this.userId = userId;
+            this.securityEpoch = securityEpoch;
+            this.absoluteExpiry = absoluteExpiry;
+            this.lastAccess = lastAccess;
+            this.checkedAt = lastAccess;
+        }
+
+        public LocalUser principal() {
+            return principal;
+        }
+
+        public long userId() {
+            return userId;
+        }
+
+        public long securityEpoch() {
+            return securityEpoch;
+        }
+    }
+
+    private static final int SESSION_ID_LENGTH = 22;
+
+    private final ConcurrentHashMap<String, Session>[] stripes;
+    private final AppProperties.Session config;
+    private final AuthSessionRepository authSessionRepository;
+    private final LocalUserDetailService localUserDetailService;
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, Boolean> misses;
+
+    @SuppressWarnings("unchecked")
+    public SessionStore(AppProperties appProperties, AuthSessionRepository authSessionRepository, LocalUserDetailService localUserDetailService) {
+        this.config = appProperties.getAuth().getSession();
+        this.authSessionRepository = authSessionRepository;
+        this.localUserDetailService = localUserDetailService;
+        this.stripes = new ConcurrentHashMap[Math.max(1, config.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.misses = Caffeine.newBuilder()
+            .maximumSize(config.getMissCacheMaxSize())
+            .expireAfterWrite(Duration.ofMillis(config.getMissCacheTtlMsec()))
+            .build();
+    }
+
+    /**
+     * Opaque ids never contain a dot, compact JWTs always do.
+     */
+    public static boolean isSessionId(String token) {
+        return token.indexOf('.') < 0;
+    }
+
+    public String create(LocalUser principal) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String sessionId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        long now = System.currentTimeMillis();
+        long userId = principal.getUser().getId();
+        long epoch = principal.getUser().getSecurityEpoch();
+        Session session = new Session(principal, userId, epoch, now + config.getAbsoluteTimeoutMsec(), now);
+        stripe(sessionId).put(sessionId, session);
+
+        if (config.isWriteThrough()) {
+            AuthSession record = new AuthSession();
+            record.setSessionHash(hash(sessionId));
+            record.setUserId(userId);
+            record.setSecurityEpoch(epoch);
+            record.setCreatedDate(new Date(now));
+            record.setExpiresAt(new Date(session.absoluteExpiry));
+            authSessionRepository.save(record);
+        }
+        return sessionId;
+    }
+
+    /**
+     * @return the live session, or null if it is unknown, idle for too long or past its absolute expiry
+     */
+    public Session get(String sessionId) {
+        ConcurrentHashMap<String, Session> stripe = stripe(sessionId);
+        Session session = stripe.get(sessionId);
+        if (session == null && config.isWriteThrough() && isWellFormed(sessionId) && misses.getIfPresent(sessionId) == null) {
+            session = load(sessionId);
+            if (session == null) {
+                misses.put(sessionId, Boolean.TRUE);
+            } else {
+                Session raced = stripe.putIfAbsent(sessionId, session);
+                session = raced != null ? raced : session;
+            }
+        }
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (isExpired(session, now)) {
+            revoke(sessionId);
+            return null;
+        }
+        if (config.isWriteThrough() && now - session.checkedAt >= config.getRecheckIntervalMsec()) {
+            if (!authSessionRepository.existsById(hash(sessionId))) {
+                // Revoked on another node
+                stripe.remove(sessionId, session);
+                return null;
+            }
+            session.checkedAt = now;
+        }
+        // Skip the volatile write while the session is being hammered by the same client
+        if (now - session.lastAccess > 1000) {
+            session.lastAccess = now;
+        }
+        return session;
+    }
+
+    public void revoke(String sessionId) {
+        stripe(sessionId).remove(sessionId);
+        if (config.isWriteThrough()) {
+            authSessionRepository.deleteById(hash(sessionId));
+        }
+    }
+
+    public void revokeAll(long userId) {
+        for (ConcurrentHashMap<String, Session> stripe : stripes) {
+            stripe.values().removeIf(session -> session.userId == userId);
+        }
+        if (config.isWriteThrough()) {
+            authSessionRepository.deleteByUserId(userId);
+        }
+    }
+
+    /**
+     * Drops the user's sessions once a security epoch bump commits. Runs in a transaction of its own
+     * because the one that bumped the epoch has already completed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSecurityEpochChanged(SecurityEpochService.EpochChanged event) {
+        revokeAll(event.userId());
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Session> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.session.sweepIntervalMsec:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        for (ConcurrentHashMap<String, Session> stripe : stripes) {
+            stripe.values().removeIf(session -> isExpired(session, now));
+        }
+        if (config.isWriteThrough()) {
+            int deleted = authSessionRepository.deleteExpired(new Date(now));
+            if (deleted > 0) {
+                log.debug("Purged {} expired sessions", deleted);
+            }
+        }
+    }
+
+    private Session load(String sessionId) {
+        Optional<AuthSession> record = authSessionRepository.findById(hash(sessionId));
+        if (record.isEmpty() || record.get().getExpiresAt().getTime() <= System.currentTimeMillis()) {
+            return null;
+        }
+        AuthSession stored = record.get();
+        LocalUser principal = localUserDetailService.loadUserById(stored.getUserId());
+        return new Session(principal, stored.getUserId(), stored.getSecurityEpoch(), stored.getExpiresAt().getTime(), System.currentTimeMillis());
+    }
+
+    // 16 random bytes, base64url without padding
+    private static boolean isWellFormed(String sessionId) {
+        if (sessionId.length() != SESSION_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < SESSION_ID_LENGTH; i++) {
+            char c = sessionId.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now >= session.absoluteExpiry || now - session.lastAccess >= config.getIdleTimeoutMsec();
+    }
+
+    private ConcurrentHashMap<String, Session> stripe(String sessionId) {
+        int hash = sessionId.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    private static String hash(String sessionId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
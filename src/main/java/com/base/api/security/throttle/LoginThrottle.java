@@ -0,0 +1,243 @@
+package com.base.api.security.throttle;
+
+import com.base.api.config.AppProperties;
+import com.base.api.exception.LoginThrottledException;
+import com.base.api.util.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits sign-in attempts before any password is hashed. Every attempt takes a permit from a
+ * token bucket for its client IP and one for its email. Once a key has failed more than
+ * {@code freeFailures} times in a row, it is also blocked for an exponentially growing delay. A
+ * rejection is a map lookup and a CAS, so throttled credential stuffing costs no BCrypt work.
+ * <p>
+ * Keys are spread over independent stripes and forgotten after {@code idleTimeoutMsec} without
+ * attempts by {@link #evictIdle()}, every {@code sweepIntervalMsec}. Each key class tracks at most
+ * {@code maxKeys} keys. Beyond that, a new key is only limited by the other class until the next
+ * sweep frees room; the request path never sweeps, so a flood of new keys costs no more than a
+ * map lookup each.
+ * <p>
+ * The IP key is {@link jakarta.servlet.http.HttpServletRequest#getRemoteAddr()}. Behind a reverse
+ * proxy it is resolved from {@code X-Forwarded-For} by the container, see
+ * {@code server.forward-headers-strategy} in {@code application.properties}.
+ */
+@Component
+public class LoginThrottle {
+
+    public enum KeyClass {
+        EMAIL, IP
+    }
+
+    private static final class Entry {
+        private final TokenBucket bucket;
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long blockedUntil;
+        private volatile long lastAccess;
+
+        private Entry(TokenBucket bucket, long now) {
+            this.bucket = bucket;
+            this.lastAccess = now;
+        }
+    }
+
+    private final class Tracker {
+        private final KeyClass keyClass;
+        private final ConcurrentHashMap<String, Entry>[] stripes;
+        private final int maxKeysPerStripe;
+        private final double permitsPerSecond;
+        private final int burst;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder backedOff = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder untracked = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        private Tracker(KeyClass keyClass, double permitsPerSecond, int burst) {
+            // Buckets are created per key on first use, so reject a bad rate or burst at startup instead
+            new TokenBucket(permitsPerSecond, burst);
+            this.keyClass = keyClass;
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.stripes = new ConcurrentHashMap[Math.max(1, config.getStripes())];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new ConcurrentHashMap<>();
+            }
+            this.maxKeysPerStripe = Math.max(1, config.getMaxKeys() / stripes.length);
+        }
+
+        /**
+         * @return 0 if the attempt may proceed, otherwise nanoseconds until the key may try again
+         */
+        private long tryAcquire(String key, long now) {
+            Entry entry = entry(key, now);
+            if (entry == null) {
+                untracked.increment();
+                return 0;
+            }
+            entry.lastAccess = now;
+            long blocked = entry.blockedUntil - now;
+            if (blocked > 0) {
+                backedOff.increment();
+                return blocked;
+            }
+            if (!entry.bucket.tryAcquire()) {
+                throttled.increment();
+                return Math.max(1, entry.bucket.nanosUntilAvailable());
+            }
+            allowed.increment();
+            return 0;
+        }
+
+        private void recordFailure(String key, long now) {
+            failed.increment();
+            Entry entry = stripe(key).get(key);
+            if (entry == null) {
+                return;
+            }
+            int excess = entry.failures.incrementAndGet() - config.getFreeFailures();
+            if (excess > 0) {
+                long delayMsec = Math.min(config.getBackoffMaxMsec(), config.getBackoffBaseMsec() << Math.min(excess - 1, 30));
+                entry.blockedUntil = now + TimeUnit.MILLISECONDS.toNanos(delayMsec);
+            }
+        }
+
+        private void reset(String key) {
+            Entry entry = stripe(key).get(key);
+            if (entry != null) {
+                entry.failures.set(0);
+                entry.blockedUntil = 0;
+            }
+        }
+
+        private Entry entry(String key, long now) {
+            ConcurrentHashMap<String, Entry> stripe = stripe(key);
+            Entry entry = stripe.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            if (stripe.size() >= maxKeysPerStripe) {
+                return null;
+            }
+            return stripe.computeIfAbsent(key, k -> new Entry(new TokenBucket(permitsPerSecond, burst), now));
+        }
+
+        private void sweep(ConcurrentHashMap<String, Entry> stripe, long now) {
+            long idleNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMsec());
+            stripe.values().removeIf(entry -> now - entry.lastAccess >= idleNanos && entry.blockedUntil - now <= 0);
+        }
+
+        private int size() {
+            int size = 0;
+            for (ConcurrentHashMap<String, Entry> stripe : stripes) {
+                size += stripe.size();
+            }
+            return size;
+        }
+
+        private ConcurrentHashMap<String, Entry> stripe(String key) {
+            int hash = key.hashCode();
+            return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+        }
+
+        private void register(MeterRegistry meterRegistry) {
+            String tag = keyClass.name();
+            counter(meterRegistry, "allowed", allowed);
+            counter(meterRegistry, "throttled", throttled);
+            counter(meterRegistry, "backoff", backedOff);
+            counter(meterRegistry, "untracked", untracked);
+            FunctionCounter.builder("auth.login.failures", failed, LongAdder::sum)
+                .description("Failed sign-in attempts by key class")
+                .tag("keyClass", tag)
+                .register(meterRegistry);
+            Gauge.builder("auth.login.throttle.keys", this, Tracker::size)
+                .description("Keys tracked by the sign-in throttle")
+                .tag("keyClass", tag)
+                .register(meterRegistry);
+        }
+
+        private void counter(MeterRegistry meterRegistry, String outcome, LongAdder adder) {
+            FunctionCounter.builder("auth.login.throttle", adder, LongAdder::sum)
+                .description("Sign-in attempts seen by the throttle by key class and outcome")
+                .tag("keyClass", keyClass.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+
+    private final AppProperties.LoginThrottle config;
+    private final Tracker emails;
+    private final Tracker ips;
+
+    public LoginThrottle(AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.config = appProperties.getAuth().getLoginThrottle();
+        this.emails = new Tracker(KeyClass.EMAIL, config.getEmailPermitsPerSecond(), config.getEmailBurst());
+        this.ips = new Tracker(KeyClass.IP, config.getIpPermitsPerSecond(), config.getIpBurst());
+        emails.register(meterRegistry);
+        ips.register(meterRegistry);
+    }
+
+    /**
+     * Takes a permit for the attempt. The IP is checked first so a flood from one client does not
+     * drain the buckets of the emails it targets.
+     *
+     * @throws LoginThrottledException if either key is out of permits or backing off
+     */
+    public void acquire(String email, String clientIp) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long wait = ips.tryAcquire(clientIp, now);
+        if (wait == 0) {
+            wait = emails.tryAcquire(normalize(email), now);
+        }
+        if (wait > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999));
+            throw new LoginThrottledException("Too many sign-in attempts, please retry later", retryAfterSeconds);
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        ips.recordFailure(clientIp, now);
+        emails.recordFailure(normalize(email), now);
+    }
+
+    /**
+     * Clears the back-off of the email. The IP keeps its failure count, otherwise an attacker
+     * holding one valid account could reset it between guesses.
+     */
+    public void recordSuccess(String email) {
+        if (config.isEnabled()) {
+            emails.reset(normalize(email));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.loginThrottle.sweepIntervalMsec:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Tracker tracker : new Tracker[]{emails, ips}) {
+            for (ConcurrentHashMap<String, Entry> stripe : tracker.stripes) {
+                tracker.sweep(stripe, now);
+            }
+        }
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,128 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over the emails of all users, so sign-ins for unknown emails are rejected without
+ * opening a transaction or loading an entity. It is built from {@code app_user} on the scheduler
+ * right after startup, then rebuilt every {@code rebuildIntervalMsec}. Emails written through this
+ * node are added right away.
+ * <p>
+ * The filter can lag behind the table, for users created on other nodes or outside the application,
+ * so a miss is confirmed with an indexed existence query before the email is reported as unknown.
+ * An email found that way is added to the filter. An email confirmed missing is remembered for
+ * {@code missCacheTtlMsec}, so repeating an unknown email costs one query rather than one per
+ * attempt. Until the first build completes every email is reported as possibly known. Emails added
+ * while a rebuild scans the table are kept aside and copied into the new filter, so a registration
+ * racing the scan is never lost.
+ */
+@Slf4j
+@Component
+public class KnownEmailFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppProperties.KnownEmails config;
+    private final ConcurrentHashMap<String, Long> recent = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> misses;
+    private final LongAdder rejected = new LongAdder();
+    private volatile BloomFilter filter;
+    private long lastRebuildStart;
+
+    public KnownEmailFilter(JdbcTemplate jdbcTemplate, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = appProperties.getAuth().getKnownEmails();
+        this.misses = Caffeine.newBuilder()
+            .maximumSize(config.getMissCacheMaxSize())
+            .expireAfterWrite(Duration.ofMillis(config.getMissCacheTtlMsec()))
+            .build();
+        FunctionCounter.builder("auth.login.unknownEmails", rejected, LongAdder::sum)
+            .description("Sign-ins rejected by the known email filter and an existence check, without loading a user")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return false only if no user has this email; true may be a false positive
+     */
+    public boolean mightExist(String email) {
+        BloomFilter current = filter;
+        if (!config.isEnabled() || current == null || email == null) {
+            return true;
+        }
+        String normalized = normalize(email);
+        if (current.mightContain(normalized)) {
+            return true;
+        }
+        if (misses.getIfPresent(normalized) != null) {
+            rejected.increment();
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject("select count(*) from app_user where email = ?", Integer.class, email.trim());
+        if (count != null && count > 0) {
+            log.debug("Known email filter missed an existing user, adding it");
+            add(email);
+            return true;
+        }
+        misses.put(normalized, Boolean.TRUE);
+        rejected.increment();
+        return false;
+    }
+
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        String normalized = normalize(email);
+        misses.invalidate(normalized);
+        recent.put(normalized, System.currentTimeMillis());
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(normalized);
+        }
+    }
+
+    // The first build also runs on the scheduler, so startup does not wait for a full table scan
+    @Scheduled(fixedDelayString = "${app.auth.knownEmails.rebuildIntervalMsec:300000}", initialDelay = 0)
+    public synchronized void rebuild() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Integer count = jdbcTemplate.queryForObject("select count(*) from app_user", Integer.class);
+        BloomFilter next = new BloomFilter(Math.max(config.getExpectedEmails(), (count != null ? count : 0) * 2), config.getFalsePositiveRate());
+        AtomicInteger loaded = new AtomicInteger();
+        jdbcTemplate.query("select email from app_user", resultSet -> {
+            String email = resultSet.getString(1);
+            if (email != null) {
+                next.put(normalize(email));
+                loaded.incrementAndGet();
+            }
+        });
+        filter = next;
+        // Copied after the swap so an email added concurrently ends up either here or directly in the new filter
+        recent.keySet().forEach(next::put);
+        // Emails added before the previous scan started are in the table this scan read
+        long retainSince = lastRebuildStart;
+        recent.values().removeIf(addedAt -> addedAt < retainSince);
+        lastRebuildStart = start;
+        log.debug("Rebuilt known email filter with {} emails in {} ms", loaded.get(), System.currentTimeMillis() - start);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,30 +1,80 @@
 package com.base.api.service;
 
 import com.base.api.dto.LocalUser;
+import com.base.api.dto.SocialProvider;
 import com.base.api.exception.ResourceNotFoundException;
 import com.base.api.model.AppUser;
+import com.base.api.model.Role;
+import com.base.api.repo.UserRepository;
 import com.base.api.util.CommonUtils;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 @Service("localUserDetailService")
-public class LocalUserDetailService implements UserDetailsService {
+public class LocalUserDetailService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserService userService;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final KnownEmailFilter knownEmailFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRegistry roleRegistry;
 
-    public LocalUserDetailService(UserService userService) {
+    public LocalUserDetailService(UserService userService, UserRepository userRepository, UserCache userCache,
+                                  KnownEmailFilter knownEmailFilter, TransactionTemplate transactionTemplate, RoleRegistry roleRegistry) {
         this.userService = userService;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.knownEmailFilter = knownEmailFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.roleRegistry = roleRegistry;
     }
 
+    /**
+     * Emails the {@link KnownEmailFilter} rules out are rejected after at most one existence query,
+     * without a transaction or loading a user. The authentication provider still compares the password
+     * against a dummy hash for them, so an unknown email takes as long as a wrong password.
+     */
     @Override
-    @Transactional
     public LocalUser loadUserByUsername(final String email) throws UsernameNotFoundException {
-        AppUser user = userService.findUserByEmail(email);
-        if (user == null) {
+        if (!knownEmailFilter.mightExist(email)) {
+            throw new UsernameNotFoundException("User " + email + " was not found in the database");
+        }
+        LocalUser localUser = transactionTemplate.execute(status -> {
+            AppUser user = userService.findUserByEmail(email);
+            return user != null ? createLocalUser(user) : null;
+        });
+        if (localUser == null) {
             throw new UsernameNotFoundException("User " + email + " was not found in the database");
         }
+        return localUser;
+    }
+
+    /**
+     * Called after a successful sign-in whose stored hash is unprefixed or weaker than the current
+     * encoder, with the password re-encoded at the current cost.
+     */
+    @Override
+    @Transactional
+    public LocalUser updatePassword(UserDetails userDetails, String newPassword) {
+        LocalUser localUser = (LocalUser) userDetails;
+        AppUser user = localUser.getUser();
+        if (userRepository.updatePassword(user.getId(), localUser.getPassword(), newPassword) == 0) {
+            // The password changed since it was verified, keep the newer one
+            return localUser;
+        }
+        userCache.evict(user.getId(), user.getEmail());
+        user.setPassword(newPassword);
         return createLocalUser(user);
     }
 
@@ -34,8 +84,54 @@ public class LocalUserDetailService implements UserDetailsService {
         return createLocalUser(user);
     }
 
+    /**
+     * Builds the principal from already verified token claims without touching the database.
+     * <p>
+     * The resulting {@link AppUser} is a read-only snapshot: it carries no password and must never
+     * be saved. It is marked enabled because the caller has already checked the token's security
+     * epoch, which disabling a user bumps. Roles are resolved through the {@link RoleRegistry}, so
+     * they carry their ids; roles deleted since the token was issued are dropped.
+     */
+    public LocalUser loadUserFromClaims(Claims claims) {
+        Set<Role> roles = new HashSet<>();
+        Object roleClaim = claims.get("roles");
+        if (roleClaim instanceof Collection<?> names) {
+            for (Object name : names) {
+                addRole(roles, name.toString());
+            }
+        } else if (claims.get("rl") instanceof Collection<?> codes) {
+            for (Object code : codes) {
+                addRole(roles, Role.fromCode(code.toString()));
+            }
+        }
+        String provider = claims.get("provider", String.class);
+        Number epoch = claims.get("epoch", Number.class);
+        String email = claims.get("email", String.class);
+        AppUser user = AppUser.builder()
+            .id(Long.parseLong(claims.getSubject()))
+            .email(email)
+            .displayName(claims.get("displayName", String.class))
+            .picture(claims.get("picture", String.class))
+            .provider(provider != null ? SocialProvider.valueOf(provider) : null)
+            .roles(roles)
+            .enabled(true)
+            .securityEpoch(epoch != null ? epoch.longValue() : 0)
+            .password("")
+            .build();
+        return createLocalUser(user);
+    }
+
+    private void addRole(Set<Role> roles, String name) {
+        Role role = roleRegistry.get(name);
+        if (role != null) {
+            roles.add(role);
+        }
+    }
+
     private LocalUser createLocalUser(AppUser user) {
-        return new LocalUser(user.getEmail(), user.getPassword(), user.isEnabled(), true, true, true, CommonUtils.buildSimpleGrantedAuthorities(user.getRoles()), user);
+        // Minimal tokens carry no email, so fall back to the id as the username
+        String username = user.getEmail() != null ? user.getEmail() : user.getId().toString();
+        return new LocalUser(username, user.getPassword(), user.isEnabled(), true, true, true, CommonUtils.buildSimpleGrantedAuthorities(user.getRoles()), user);
     }
 }
 
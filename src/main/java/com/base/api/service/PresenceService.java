@@ -0,0 +1,196 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.UserInfo;
+import com.base.api.dto.UserStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live presence of users, driven by heartbeats. A heartbeat updates the user's entry in a striped
+ * map and moves it into the current slot of a timing wheel. Each sweep tick only looks at the one
+ * slot whose heartbeats are now older than the idle timeout, so the cost of finding idle users
+ * does not grow with the number of users online.
+ * <p>
+ * Transitions between ACTIVE and DISCONNECTED are queued and written to {@code app_user.status}
+ * in batches. Users that are SUSPENDED or BLOCKED are never touched. Listings overlay the live
+ * state on the persisted status, so they stay current between flushes. A DISCONNECTED transition
+ * can be queued just after a heartbeat brought the user back, so the flush writes ACTIVE instead
+ * for any user whose live entry exists again.
+ */
+@Slf4j
+@Component
+public class PresenceService {
+
+    private static final String UPDATE_SQL = "update app_user set status = ? where user_id = ? and status in ('ACTIVE', 'DISCONNECTED')";
+
+    private final ConcurrentHashMap<Long, Long>[] stripes;
+    private final Set<Long>[] wheel;
+    private final ConcurrentHashMap<Long, UserStatus> pendingStatus = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCache userCache;
+    private final long tickMsec;
+    private final long idleTimeoutMsec;
+    private final int timeoutTicks;
+    private long lastSweptTick;
+
+    @SuppressWarnings("unchecked")
+    public PresenceService(JdbcTemplate jdbcTemplate, UserCache userCache, AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.Presence config = appProperties.getPresence();
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCache = userCache;
+        this.tickMsec = config.getTickMsec();
+        this.idleTimeoutMsec = config.getIdleTimeoutMsec();
+        this.timeoutTicks = (int) ((idleTimeoutMsec + tickMsec - 1) / tickMsec);
+        this.stripes = new ConcurrentHashMap[Math.max(1, config.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        // Two slots more than the timeout spans: the swept slot, timeoutTicks + 1 ticks old, is always
+        // fully expired and never the one heartbeats are currently filling
+        this.wheel = new Set[timeoutTicks + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastSweptTick = System.currentTimeMillis() / tickMsec;
+        Gauge.builder("presence.online", this, PresenceService::getOnlineCount)
+            .description("Users with a heartbeat within the idle timeout")
+            .register(meterRegistry);
+    }
+
+    public void heartbeat(long userId) {
+        long now = System.currentTimeMillis();
+        Long previous = stripe(userId).put(userId, now);
+        int slot = slotOf(now);
+        if (previous == null) {
+            pendingStatus.put(userId, UserStatus.ACTIVE);
+            wheel[slot].add(userId);
+        } else if (slotOf(previous) != slot) {
+            wheel[slotOf(previous)].remove(userId);
+            wheel[slot].add(userId);
+        }
+    }
+
+    public void disconnect(long userId) {
+        Long previous = stripe(userId).remove(userId);
+        if (previous != null) {
+            wheel[slotOf(previous)].remove(userId);
+        }
+        pendingStatus.put(userId, UserStatus.DISCONNECTED);
+    }
+
+    public boolean isOnline(long userId) {
+        Long last = stripe(userId).get(userId);
+        return last != null && System.currentTimeMillis() - last < idleTimeoutMsec;
+    }
+
+    public int getOnlineCount() {
+        int count = 0;
+        for (ConcurrentHashMap<Long, Long> stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the persisted ACTIVE/DISCONNECTED status with the live one.
+     */
+    public List<UserInfo> overlay(List<UserInfo> users) {
+        List<UserInfo> result = new ArrayList<>(users.size());
+        for (UserInfo user : users) {
+            result.add(overlay(user));
+        }
+        return result;
+    }
+
+    public UserInfo overlay(UserInfo user) {
+        if (!UserStatus.ACTIVE.name().equals(user.status()) && !UserStatus.DISCONNECTED.name().equals(user.status())) {
+            return user;
+        }
+        long userId = Long.parseLong(user.id());
+        UserStatus pending = pendingStatus.get(userId);
+        String status = isOnline(userId) ? UserStatus.ACTIVE.name() : pending != null ? pending.name() : user.status();
+        return status.equals(user.status()) ? user
+            : new UserInfo(user.id(), user.displayName(), user.picture(), user.email(), status, user.roles());
+    }
+
+    @Scheduled(fixedRateString = "${app.presence.tickMsec:1000}")
+    public synchronized void sweep() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMsec;
+        // Catch up on every tick since the last sweep, in case the scheduler fell behind
+        for (long tick = Math.max(lastSweptTick + 1, currentTick - wheel.length + 1); tick <= currentTick; tick++) {
+            int expired = slotIndex(tick - timeoutTicks - 1);
+            Set<Long> slot = wheel[expired];
+            List<Long> requeue = new ArrayList<>();
+            for (Long userId : slot) {
+                slot.remove(userId);
+                Long last = stripe(userId).get(userId);
+                if (last != null && now - last >= idleTimeoutMsec && stripe(userId).remove(userId, last)) {
+                    pendingStatus.put(userId, UserStatus.DISCONNECTED);
+                } else if (last != null && slotOf(last) == expired) {
+                    // A heartbeat at the tick boundary landed in this slot again
+                    requeue.add(userId);
+                }
+            }
+            slot.addAll(requeue);
+        }
+        lastSweptTick = currentTick;
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.flushIntervalMsec:5000}")
+    public void flush() {
+        if (pendingStatus.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, UserStatus>> batch = new ArrayList<>(pendingStatus.size());
+        for (Long userId : pendingStatus.keySet()) {
+            UserStatus status = pendingStatus.remove(userId);
+            if (status == UserStatus.DISCONNECTED && stripe(userId).containsKey(userId)) {
+                // A heartbeat raced the sweep or disconnect that queued this
+                status = UserStatus.ACTIVE;
+            }
+            if (status != null) {
+                batch.add(Map.entry(userId, status));
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (statement, entry) -> {
+                statement.setString(1, entry.getValue().name());
+                statement.setLong(2, entry.getKey());
+            });
+            batch.forEach(entry -> userCache.evict(entry.getKey(), null));
+        } catch (RuntimeException e) {
+            log.warn("Could not persist {} presence changes, keeping them for the next flush", batch.size(), e);
+            batch.forEach(entry -> pendingStatus.putIfAbsent(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private int slotOf(long millis) {
+        return slotIndex(millis / tickMsec);
+    }
+
+    private int slotIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) wheel.length);
+    }
+
+    private ConcurrentHashMap<Long, Long> stripe(long userId) {
+        return stripes[(int) Math.floorMod(userId ^ (userId >>> 32), (long) stripes.length)];
+    }
+}
@@ -0,0 +1,104 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.model.RefreshToken;
+import com.base.api.repo.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Issues and rotates opaque refresh tokens. Each token is single use: refreshing revokes it and
+ * hands out a replacement. Presenting an already rotated token is treated as theft and revokes every
+ * refresh token of that user.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    public record Rotation(Long userId, String refreshToken) {
+    }
+
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final AppProperties appProperties;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, AppProperties appProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.appProperties = appProperties;
+    }
+
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Date now = new Date();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setUserId(userId);
+        refreshToken.setCreatedDate(now);
+        refreshToken.setExpiresAt(new Date(now.getTime() + appProperties.getAuth().getRefreshTokenExpirationMsec()));
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(rawToken));
+        if (stored == null || stored.getExpiresAt().before(new Date())) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        // markRevoked is a conditional update, so of two concurrent refreshes only one can win
+        if (stored.isRevoked() || refreshTokenRepository.markRevoked(stored.getId()) == 0) {
+            log.warn("Refresh token reuse detected for user {}, revoking all of their refresh tokens", stored.getUserId());
+            refreshTokenRepository.deleteByUserId(stored.getUserId());
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return new Rotation(stored.getUserId(), issue(stored.getUserId()));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Deletes expired tokens in small batches so the sweep never holds long row locks.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.refreshTokenSweepIntervalMsec:3600000}")
+    public void purgeExpired() {
+        Date now = new Date();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpired(now, SWEEP_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == SWEEP_BATCH_SIZE);
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.base.api.service;
+
+import com.base.api.model.Role;
+import com.base.api.repo.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the role table, so the sign-up, update and import paths resolve role
+ * names without a query. Lookups always return the same {@link Role} instances until the next
+ * reload. They are detached entities carrying only id and name, which is all an association
+ * needs when a user is saved.
+ * <p>
+ * Reloaded on the schedule {@code app.roleRegistry.reloadIntervalMsec} and on demand through
+ * {@code POST /api/admin/roles/reload}.
+ */
+@Slf4j
+@Component
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<String, Role> rolesByName;
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * @return the role with the given name, or null if there is none
+     */
+    public Role get(String name) {
+        return snapshot().get(name);
+    }
+
+    public Collection<Role> getAll() {
+        return snapshot().values();
+    }
+
+    @Scheduled(initialDelayString = "${app.roleRegistry.reloadIntervalMsec:300000}", fixedDelayString = "${app.roleRegistry.reloadIntervalMsec:300000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    public synchronized Collection<Role> reload() {
+        Map<String, Role> roles = new HashMap<>();
+        for (Role stored : roleRepository.findAll()) {
+            Role role = new Role(stored.getName());
+            role.setRoleId(stored.getRoleId());
+            roles.put(role.getName(), role);
+        }
+        Map<String, Role> previous = rolesByName;
+        rolesByName = Map.copyOf(roles);
+        if (previous == null || !previous.keySet().equals(roles.keySet())) {
+            log.info("Loaded {} roles: {}", roles.size(), roles.keySet());
+        }
+        return rolesByName.values();
+    }
+
+    private Map<String, Role> snapshot() {
+        Map<String, Role> current = rolesByName;
+        if (current == null) {
+            reload();
+            current = rolesByName;
+        }
+        return current;
+    }
+}
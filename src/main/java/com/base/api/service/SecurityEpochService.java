@@ -0,0 +1,70 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.model.AppUser;
+import com.base.api.repo.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Tracks the per-user security epoch that every token is stamped with. Disabling a user or changing
+ * their email or roles bumps the epoch, which invalidates all of their outstanding tokens.
+ * <p>
+ * Epochs are persisted on {@link AppUser} and mirrored in a small in-memory map, so the per-request
+ * check is a map lookup. Entries expire after {@code app.auth.securityEpochTtlMsec} so changes made
+ * on other nodes are picked up within that window.
+ * <p>
+ * Every bump publishes an {@link EpochChanged} event, so stateful sessions can be dropped as well.
+ */
+@Service
+public class SecurityEpochService {
+
+    public record EpochChanged(long userId) {
+    }
+
+    private final LoadingCache<Long, Long> epochs;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SecurityEpochService(UserRepository userRepository, AppProperties appProperties, ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.epochs = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMillis(appProperties.getAuth().getSecurityEpochTtlMsec()))
+            .build(userRepository::findSecurityEpochById);
+    }
+
+    /**
+     * @return true if a token stamped with {@code tokenEpoch} is still acceptable for the user
+     */
+    public boolean isCurrent(long userId, long tokenEpoch) {
+        Long current = epochs.get(userId);
+        return current != null && tokenEpoch >= current;
+    }
+
+    /**
+     * Increments the user's epoch on the entity. The in-memory copy is updated once the surrounding
+     * transaction commits, so a rollback never leaves the map ahead of the database.
+     */
+    public void bump(AppUser user) {
+        long next = user.getSecurityEpoch() + 1;
+        user.setSecurityEpoch(next);
+        Long userId = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    epochs.put(userId, next);
+                }
+            });
+        } else {
+            epochs.put(userId, next);
+        }
+        eventPublisher.publishEvent(new EpochChanged(userId));
+    }
+}
@@ -0,0 +1,150 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind recorder for last-login and last-seen timestamps. The request path only merges the
+ * timestamp into a per-user entry of a concurrent map, so any number of requests by the same user
+ * between two flushes cost one row update.
+ * <p>
+ * Pending entries are written every {@code app.userActivity.flushIntervalMsec} as batched
+ * {@code UPDATE}s and once more on shutdown. A failed flush stops at the failing batch and puts
+ * its entries back so they are retried on the next one. While the database is unreachable the map
+ * is capped at {@code app.userActivity.maxPending} users; updates for further users are dropped
+ * and counted, since a lost last-seen timestamp is cheaper than running out of heap.
+ */
+@Slf4j
+@Component
+public class UserActivityRecorder {
+
+    private static final String UPDATE_SQL =
+        "update app_user set last_login_at = coalesce(?, last_login_at), last_seen_at = coalesce(?, last_seen_at) where user_id = ?";
+
+    private record Activity(long lastLoginAt, long lastSeenAt) {
+
+        Activity max(Activity other) {
+            return new Activity(Math.max(lastLoginAt, other.lastLoginAt), Math.max(lastSeenAt, other.lastSeenAt));
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Activity> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final AppProperties.UserActivity config;
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter droppedUpdates;
+
+    public UserActivityRecorder(JdbcTemplate jdbcTemplate, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = appProperties.getUserActivity();
+        Gauge.builder("user.activity.pending", pending, Map::size)
+            .description("Users with last-login or last-seen updates waiting to be written")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("user.activity.flush")
+            .description("Time taken to write pending last-login and last-seen updates")
+            .register(meterRegistry);
+        this.flushedRows = Counter.builder("user.activity.flushed")
+            .description("User rows updated with last-login or last-seen timestamps")
+            .register(meterRegistry);
+        this.droppedUpdates = Counter.builder("user.activity.dropped")
+            .description("Last-login or last-seen updates dropped because too many were waiting to be written")
+            .register(meterRegistry);
+    }
+
+    public void recordLogin(long userId) {
+        if (config.isEnabled()) {
+            long now = System.currentTimeMillis();
+            record(userId, new Activity(now, now));
+        }
+    }
+
+    public void recordSeen(long userId) {
+        if (config.isEnabled()) {
+            record(userId, new Activity(0, System.currentTimeMillis()));
+        }
+    }
+
+    private void record(long userId, Activity activity) {
+        // Users already pending only coalesce, so the cap never loses an update that costs no memory
+        if (pending.size() >= config.getMaxPending() && !pending.containsKey(userId)) {
+            droppedUpdates.increment();
+            return;
+        }
+        pending.merge(userId, activity, Activity::max);
+    }
+
+    @Scheduled(fixedDelayString = "${app.userActivity.flushIntervalMsec:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushTimer.record(this::drain);
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void drain() {
+        List<Map.Entry<Long, Activity>> batch = new ArrayList<>(Math.min(pending.size(), config.getBatchSize()));
+        for (Long userId : pending.keySet()) {
+            Activity activity = pending.remove(userId);
+            if (activity != null) {
+                batch.add(Map.entry(userId, activity));
+            }
+            if (batch.size() == config.getBatchSize()) {
+                if (!write(batch)) {
+                    // The rest stays pending; no point in failing on every batch
+                    return;
+                }
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private boolean write(List<Map.Entry<Long, Activity>> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (statement, entry) -> {
+                setTimestamp(statement, 1, entry.getValue().lastLoginAt());
+                setTimestamp(statement, 2, entry.getValue().lastSeenAt());
+                statement.setLong(3, entry.getKey());
+            });
+            flushedRows.increment(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} user activity updates, keeping them for the next flush", batch.size(), e);
+            batch.forEach(entry -> record(entry.getKey(), entry.getValue()));
+            return false;
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement statement, int index, long millis) throws SQLException {
+        if (millis == 0) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setTimestamp(index, new Timestamp(millis));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.SocialProvider;
+import com.base.api.model.AppUser;
+import com.base.api.model.Role;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of users keyed by id and by email, sitting in front of the lookups made on every
+ * authenticated request. Entries are immutable snapshots; callers always get a fresh, detached
+ * {@link AppUser} built from one, so nothing they change can leak back into the cache.
+ * <p>
+ * The email key only maps to the user id, so each user is held once. Writes must call
+ * {@link #evict(Long, String)}; the entry is dropped right away and again after the surrounding
+ * transaction commits, so a concurrent read cannot re-cache the pre-commit row.
+ */
+@Component
+public class UserCache {
+
+    private record RoleSnapshot(Long roleId, String name) {
+    }
+
+    private record UserSnapshot(Long id, String providerUserId, String email, boolean enabled, String displayName,
+                                String picture, Date createdDate, Date modifiedDate, String password,
+                                SocialProvider provider, String status, long securityEpoch, List<RoleSnapshot> roles) {
+
+        static UserSnapshot of(AppUser user) {
+            List<RoleSnapshot> roles = user.getRoles() == null ? List.of()
+                : user.getRoles().stream().map(role -> new RoleSnapshot(role.getRoleId(), role.getName())).toList();
+            return new UserSnapshot(user.getId(), user.getProviderUserId(), user.getEmail(), user.isEnabled(),
+                user.getDisplayName(), user.getPicture(), copy(user.getCreatedDate()), copy(user.getModifiedDate()),
+                user.getPassword(), user.getProvider(), user.getStatus(), user.getSecurityEpoch(), roles);
+        }
+
+        AppUser toAppUser() {
+            Set<Role> roleSet = new HashSet<>();
+            for (RoleSnapshot snapshot : roles) {
+                Role role = new Role(snapshot.name());
+                role.setRoleId(snapshot.roleId());
+                roleSet.add(role);
+            }
+            return AppUser.builder()
+                .id(id)
+                .providerUserId(providerUserId)
+                .email(email)
+                .enabled(enabled)
+                .displayName(displayName)
+                .picture(picture)
+                .createdDate(copy(createdDate))
+                .modifiedDate(copy(modifiedDate))
+                .password(password)
+                .provider(provider)
+                .status(status)
+                .securityEpoch(securityEpoch)
+                .roles(roleSet)
+                .build();
+        }
+
+        private static Date copy(Date date) {
+            return date != null ? new Date(date.getTime()) : null;
+        }
+    }
+
+    private final boolean enabled;
+    private final Cache<Long, UserSnapshot> byId;
+    private final Cache<String, Long> idByEmail;
+    private final Timer loadTimer;
+
+    public UserCache(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.UserCache config = appProperties.getUserCache();
+        this.enabled = config.isEnabled();
+        Duration ttl = Duration.ofMillis(config.getExpireAfterWriteMsec());
+        this.byId = Caffeine.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        this.idByEmail = Caffeine.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "usersById");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByEmail, "usersByEmail");
+        // CaffeineCacheMetrics only reports load times for loading caches
+        this.loadTimer = Timer.builder("user.cache.load")
+            .description("Time spent loading users missing from the user cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the user with the given id, calling {@code loader} on a miss. Must run inside the
+     * loader's transaction so the roles can be read.
+     */
+    public Optional<AppUser> getById(Long id, Function<Long, Optional<AppUser>> loader) {
+        if (!enabled || id == null) {
+            return loader.apply(id);
+        }
+        UserSnapshot snapshot = byId.get(id, key -> loadTimer.record(() -> loader.apply(key).map(UserSnapshot::of).orElse(null)));
+        return Optional.ofNullable(snapshot).map(UserSnapshot::toAppUser);
+    }
+
+    /**
+     * Returns the user with the given email, or null, calling {@code loader} on a miss. Unknown
+     * emails are not cached.
+     */
+    public AppUser getByEmail(String email, Supplier<AppUser> loader) {
+        if (!enabled || email == null) {
+            return loader.get();
+        }
+        Long id = idByEmail.getIfPresent(email);
+        if (id != null) {
+            UserSnapshot snapshot = byId.getIfPresent(id);
+            if (snapshot != null && email.equals(snapshot.email())) {
+                return snapshot.toAppUser();
+            }
+            idByEmail.invalidate(email);
+        }
+        UserSnapshot[] loaded = new UserSnapshot[1];
+        Long loadedId = idByEmail.get(email, key -> {
+            AppUser user = loadTimer.record(loader);
+            if (user == null) {
+                return null;
+            }
+            loaded[0] = UserSnapshot.of(user);
+            byId.put(user.getId(), loaded[0]);
+            return user.getId();
+        });
+        if (loadedId == null) {
+            return null;
+        }
+        UserSnapshot snapshot = loaded[0] != null ? loaded[0] : byId.getIfPresent(loadedId);
+        // Evicted between the two lookups, read through without caching
+        return snapshot != null ? snapshot.toAppUser() : loader.get();
+    }
+
+    public void evict(Long id, String email) {
+        doEvict(id, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(id, email);
+                }
+            });
+        }
+    }
+
+    public void evict(AppUser user) {
+        evict(user.getId(), user.getEmail());
+    }
+
+    public void evictAll() {
+        byId.invalidateAll();
+        idByEmail.invalidateAll();
+    }
+
+    private void doEvict(Long id, String email) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        if (email != null) {
+            idByEmail.invalidate(email);
+        }
+    }
+}
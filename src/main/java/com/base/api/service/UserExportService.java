@@ -0,0 +1,166 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams the whole user table as NDJSON or CSV. Rows are read through a forward-only, read-only
+ * JDBC result set and written out one at a time, so heap use does not depend on the table size and
+ * no entities are ever loaded into a persistence context. Roles are aggregated by the database.
+ * <p>
+ * CSV lines end in CRLF and NDJSON lines in LF. Both formats write {@code createdDate} as an
+ * ISO-8601 UTC instant. CSV cells that a spreadsheet would evaluate as a formula are prefixed with
+ * a single quote.
+ */
+@Slf4j
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public record UserExportRow(long id, String email, String displayName, String status, String provider, boolean enabled,
+                                @JsonFormat(shape = JsonFormat.Shape.STRING) Instant createdDate, List<String> roles) {
+    }
+
+    private static final String EXPORT_SQL =
+        "select u.user_id, u.email, u.display_name, u.status, u.provider, u.enabled, u.created_date, " +
+        "group_concat(r.name order by r.name separator ',') as roles " +
+        "from app_user u left join user_role ur on ur.user_id = u.user_id left join role r on r.role_id = ur.role_id " +
+        "group by u.user_id, u.email, u.display_name, u.status, u.provider, u.enabled, u.created_date " +
+        "order by u.user_id";
+
+    // Leading characters that make spreadsheets evaluate a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final String CSV_HEADER = "id,email,displayName,status,provider,enabled,createdDate,roles";
+
+    // RFC 4180 records end in CRLF whatever the platform line separator
+    private static final String CSV_LINE_END = "\r\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public UserExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, AppProperties appProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = appProperties.getUserExport().getFetchSize();
+    }
+
+    /**
+     * Writes every user to {@code out}. The caller owns the stream and closes it.
+     *
+     * @return number of users written
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        SequenceWriter json = format == Format.NDJSON
+            ? objectMapper.writer().withRootValueSeparator("\n").writeValues(writer)
+            : null;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write(CSV_LINE_END);
+        }
+        long[] count = new long[1];
+        try {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                UserExportRow row = toRow(resultSet);
+                try {
+                    if (json != null) {
+                        json.write(row);
+                    } else {
+                        writeCsv(writer, row);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; stop reading and release the connection
+            throw e.getCause();
+        }
+        if (json != null) {
+            json.flush();
+            writer.write('\n');
+        }
+        writer.flush();
+        log.info("Exported {} users as {} in {} ms", count[0], format, System.currentTimeMillis() - start);
+        return count[0];
+    }
+
+    private static UserExportRow toRow(ResultSet resultSet) throws SQLException {
+        String roles = resultSet.getString("roles");
+        Timestamp createdDate = resultSet.getTimestamp("created_date");
+        return new UserExportRow(
+            resultSet.getLong("user_id"),
+            resultSet.getString("email"),
+            resultSet.getString("display_name"),
+            resultSet.getString("status"),
+            resultSet.getString("provider"),
+            resultSet.getBoolean("enabled"),
+            createdDate != null ? createdDate.toInstant() : null,
+            roles == null ? List.of() : Arrays.asList(roles.split(",")));
+    }
+
+    private static void writeCsv(BufferedWriter writer, UserExportRow row) throws IOException {
+        writer.write(Long.toString(row.id()));
+        writer.write(',');
+        writeCsvField(writer, row.email());
+        writer.write(',');
+        writeCsvField(writer, row.displayName());
+        writer.write(',');
+        writeCsvField(writer, row.status());
+        writer.write(',');
+        writeCsvField(writer, row.provider());
+        writer.write(',');
+        writer.write(Boolean.toString(row.enabled()));
+        writer.write(',');
+        writeCsvField(writer, row.createdDate() != null ? row.createdDate().toString() : null);
+        writer.write(',');
+        writeCsvField(writer, String.join(";", row.roles()));
+        writer.write(CSV_LINE_END);
+    }
+
+    private static void writeCsvField(BufferedWriter writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,359 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.SocialProvider;
+import com.base.api.dto.UserImportReport;
+import com.base.api.dto.UserImportResult;
+import com.base.api.dto.UserImportRow;
+import com.base.api.dto.UserStatus;
+import com.base.api.exception.BadRequestException;
+import com.base.api.model.Role;
+import com.base.api.security.password.BoundedPasswordEncoder;
+import com.base.api.util.PasswordGeneratorUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates users in bulk without going through {@code registerNewUser} one row at a time.
+ * <ol>
+ *     <li>Rows are validated and de-duplicated within the upload.</li>
+ *     <li>Emails that already exist are found with set queries ({@code email in (...)}), one per batch.</li>
+ *     <li>Passwords are generated where missing and hashed in parallel on a bounded executor. Generated
+ *     passwords are returned once in the row results and never stored in clear.</li>
+ *     <li>Users and their roles are written with JDBC batch inserts, one transaction per batch.</li>
+ * </ol>
+ * Every row gets a result. If a batch hits a unique-key violation, typically because the email was
+ * registered concurrently, that batch is retried row by row so only the offending rows are rejected.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final String INSERT_USER_SQL =
+        "insert into app_user (email, display_name, password, provider, enabled, status, created_date, modified_date, security_epoch, picture) " +
+        "values (?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+
+    private static final String INSERT_USER_ROLE_SQL =
+        "insert into user_role (user_id, role_id) select u.user_id, ? from app_user u where u.email = ?";
+
+    private static final String DEFAULT_PICTURE = "//ssl.gstatic.com/accounts/ui/avatar_2x.png";
+
+    private record PreparedUser(int row, UserImportRow source, String email, List<Long> roleIds, String passwordHash,
+                                String generatedPassword) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRegistry roleRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final AppProperties.UserImport config;
+    private final ThreadPoolExecutor hashingExecutor;
+    private final KnownEmailFilter knownEmailFilter;
+
+    public UserImportService(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate, TransactionTemplate transactionTemplate,
+                             RoleRegistry roleRegistry, PasswordEncoder passwordEncoder, AppProperties appProperties,
+                             KnownEmailFilter knownEmailFilter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.roleRegistry = roleRegistry;
+        this.knownEmailFilter = knownEmailFilter;
+        // Imports hash on their own executor so they never take sign-in capacity or get rejected by it
+        this.passwordEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded ? bounded.getDelegate() : passwordEncoder;
+        this.config = appProperties.getUserImport();
+        int threads = config.getHashingThreads() > 0 ? config.getHashingThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Bounded queue; when it is full the submitting thread hashes the password itself
+        this.hashingExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "user-import-hash-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        this.hashingExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Reads rows from CSV with the header {@code email,displayName,password,roles}; roles are separated by {@code ;}.
+     * Fields follow RFC 4180, so they may be quoted to hold commas, doubled quotes or line breaks.
+     */
+    public List<UserImportRow> parseCsv(BufferedReader reader) throws IOException {
+        List<UserImportRow> rows = new ArrayList<>();
+        List<String> header = readRecord(reader);
+        if (header == null) {
+            return rows;
+        }
+        if (!header.get(0).trim().toLowerCase(Locale.ROOT).startsWith("email")) {
+            throw new BadRequestException("CSV must start with the header email,displayName,password,roles");
+        }
+        List<String> fields;
+        while ((fields = readRecord(reader)) != null) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            checkSize(rows.size() + 1);
+            String roles = field(fields, 3);
+            rows.add(new UserImportRow(field(fields, 0), field(fields, 1), field(fields, 2),
+                roles == null ? null : Arrays.asList(roles.split(";"))));
+        }
+        return rows;
+    }
+
+    public UserImportReport importUsers(List<UserImportRow> rows) {
+        checkSize(rows.size());
+        long start = System.currentTimeMillis();
+        UserImportResult[] results = new UserImportResult[rows.size()];
+        Map<String, Long> roleIds = new HashMap<>();
+        roleRegistry.getAll().forEach(role -> roleIds.put(role.getName(), role.getRoleId()));
+
+        List<PreparedUser> candidates = validate(rows, roleIds, results);
+        for (int from = 0; from < candidates.size(); from += config.getBatchSize()) {
+            List<PreparedUser> batch = candidates.subList(from, Math.min(from + config.getBatchSize(), candidates.size()));
+            batch = withoutExisting(batch, results);
+            insert(hash(batch), results);
+        }
+
+        int created = 0;
+        int duplicates = 0;
+        int invalid = 0;
+        for (UserImportResult result : results) {
+            switch (result.status()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Imported {} users ({} duplicates, {} invalid) in {} ms", created, duplicates, invalid, elapsed);
+        return new UserImportReport(created, duplicates, invalid, elapsed, Arrays.asList(results));
+    }
+
+    private List<PreparedUser> validate(List<UserImportRow> rows, Map<String, Long> roleIds, UserImportResult[] results) {
+        List<PreparedUser> candidates = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            UserImportRow row = rows.get(i);
+            String email = row.email() == null ? null : row.email().trim();
+            if (email == null || email.isEmpty() || email.indexOf('@') < 1) {
+                results[i] = new UserImportResult(i, row.email(), UserImportResult.Status.INVALID, "A valid email is required");
+                continue;
+            }
+            if (row.displayName() == null || row.displayName().isBlank()) {
+                results[i] = new UserImportResult(i, email, UserImportResult.Status.INVALID, "displayName is required");
+                continue;
+            }
+            if (row.password() != null && row.password().length() < 6) {
+                results[i] = new UserImportResult(i, email, UserImportResult.Status.INVALID, "Password must have at least 6 characters");
+                continue;
+            }
+            List<Long> userRoleIds = new ArrayList<>();
+            String roleError = null;
+            for (String name : row.roles() == null || row.roles().isEmpty() ? List.of(Role.ROLE_USER) : row.roles()) {
+                if (name == null || name.isBlank()) {
+                    roleError = "Role names must not be blank";
+                    break;
+                }
+                String roleName = name.trim().startsWith("ROLE_") ? name.trim() : "ROLE_" + name.trim();
+                Long roleId = roleIds.get(roleName);
+                if (roleId == null) {
+                    roleError = "Unknown role " + name;
+                    break;
+                }
+                if (!userRoleIds.contains(roleId)) {
+                    userRoleIds.add(roleId);
+                }
+            }
+            if (roleError != null) {
+                results[i] = new UserImportResult(i, email, UserImportResult.Status.INVALID, roleError);
+                continue;
+            }
+            if (!seen.add(email.toLowerCase(Locale.ROOT))) {
+                results[i] = new UserImportResult(i, email, UserImportResult.Status.DUPLICATE, "Email repeated earlier in the upload");
+                continue;
+            }
+            candidates.add(new PreparedUser(i, row, email, userRoleIds, null, null));
+        }
+        return candidates;
+    }
+
+    private List<PreparedUser> withoutExisting(List<PreparedUser> batch, UserImportResult[] results) {
+        List<String> emails = batch.stream().map(PreparedUser::email).toList();
+        Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+            "select lower(email) from app_user where email in (:emails)", new MapSqlParameterSource("emails", emails), String.class));
+        if (existing.isEmpty()) {
+            return batch;
+        }
+        List<PreparedUser> remaining = new ArrayList<>(batch.size());
+        for (PreparedUser user : batch) {
+            if (existing.contains(user.email().toLowerCase(Locale.ROOT))) {
+                results[user.row()] = new UserImportResult(user.row(), user.email(), UserImportResult.Status.DUPLICATE, "Email already registered");
+            } else {
+                remaining.add(user);
+            }
+        }
+        return remaining;
+    }
+
+    private List<PreparedUser> hash(List<PreparedUser> batch) {
+        // Passwords for rows without one are generated for the whole batch in one buffer
+        PasswordGeneratorUtils.Policy policy = PasswordGeneratorUtils.DEFAULT_POLICY;
+        int missing = (int) batch.stream().filter(user -> user.source().password() == null).count();
+        char[] generated = new char[missing * policy.length()];
+        PasswordGeneratorUtils.generatePasswords(policy, generated, 0, missing);
+        int next = 0;
+        List<CompletableFuture<PreparedUser>> futures = new ArrayList<>(batch.size());
+        for (PreparedUser user : batch) {
+            String generatedPassword = user.source().password() != null ? null
+                : new String(generated, next++ * policy.length(), policy.length());
+            String password = generatedPassword != null ? generatedPassword : user.source().password();
+            futures.add(CompletableFuture.supplyAsync(
+                () -> new PreparedUser(user.row(), user.source(), user.email(), user.roleIds(), passwordEncoder.encode(password), generatedPassword),
+                hashingExecutor));
+        }
+        Arrays.fill(generated, '\0');
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void insert(List<PreparedUser> batch, UserImportResult[] results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+            for (PreparedUser user : batch) {
+                results[user.row()] = created(user);
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Batch insert hit a constraint violation, retrying {} rows one by one", batch.size());
+            for (PreparedUser user : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(user)));
+                    results[user.row()] = created(user);
+                } catch (DataIntegrityViolationException rowFailure) {
+                    results[user.row()] = new UserImportResult(user.row(), user.email(), UserImportResult.Status.DUPLICATE, "Email already registered");
+                }
+            }
+        }
+    }
+
+    private static UserImportResult created(PreparedUser user) {
+        return new UserImportResult(user.row(), user.email(), UserImportResult.Status.CREATED, null, user.generatedPassword());
+    }
+
+    private void writeBatch(List<PreparedUser> batch) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, batch, batch.size(), (statement, user) -> {
+            statement.setString(1, user.email());
+            statement.setString(2, user.source().displayName());
+            statement.setString(3, user.passwordHash());
+            statement.setString(4, SocialProvider.LOCAL.name());
+            statement.setBoolean(5, true);
+            statement.setString(6, UserStatus.ACTIVE.name());
+            statement.setTimestamp(7, now);
+            statement.setTimestamp(8, now);
+            statement.setString(9, DEFAULT_PICTURE);
+        });
+        List<Object[]> userRoles = new ArrayList<>();
+        for (PreparedUser user : batch) {
+            for (Long roleId : user.roleIds()) {
+                userRoles.add(new Object[]{roleId, user.email()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE_SQL, userRoles);
+        batch.forEach(user -> knownEmailFilter.add(user.email()));
+    }
+
+    private void checkSize(int rows) {
+        if (rows > config.getMaxRows()) {
+            throw new BadRequestException("An import is limited to " + config.getMaxRows() + " rows");
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Reads one RFC 4180 record: a quoted field may contain commas and line breaks, and a doubled quote
+     * inside it stands for one quote. Records end with LF or CRLF.
+     *
+     * @return the fields of the record, or null at the end of the input
+     */
+    private static List<String> readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new BadRequestException("CSV ends inside a quoted field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        hashingExecutor.shutdownNow();
+    }
+}
@@ -2,7 +2,9 @@ package com.base.api.service;
 
 import com.base.api.dto.LocalUser;
 import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.UserFilter;
 import com.base.api.dto.UserInfo;
+import com.base.api.dto.UserPage;
 import com.base.api.exception.UserAlreadyExistAuthenticationException;
 import com.base.api.model.AppUser;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
@@ -24,15 +26,15 @@ public interface UserService {
 
     void updateUserStatus(long id);
 
-    List<UserInfo> getAllUsers(Long id);
-
     UserInfo createUser(UserInfo userInfo);
 
     UserInfo updateUser(Long id, UserInfo userInfo);
 
     void deleteUser(Long id);
 
-    List<UserInfo> getAllUsers();
+    UserPage getUsers(UserFilter filter, String after, int limit);
+
+    UserPage searchUsers(String query, String after, int limit);
 
     UserInfo convertToDto(AppUser user);
 
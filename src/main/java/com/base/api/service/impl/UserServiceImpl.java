@@ -1,17 +1,26 @@
 package com.base.api.service.impl;
 
 import com.base.api.dto.*;
+import com.base.api.exception.BadRequestException;
 import com.base.api.exception.OAuth2AuthenticationProcessingException;
 import com.base.api.exception.UserAlreadyExistAuthenticationException;
 import com.base.api.model.AppUser;
 import com.base.api.model.Role;
-import com.base.api.repo.RoleRepository;
 import com.base.api.repo.UserRepository;
 import com.base.api.security.oauth2.user.OAuth2UserInfo;
 import com.base.api.security.oauth2.user.OAuth2UserInfoFactory;
+import com.base.api.service.KnownEmailFilter;
+import com.base.api.service.PresenceService;
+import com.base.api.service.RoleRegistry;
+import com.base.api.service.SecurityEpochService;
+import com.base.api.service.UserCache;
 import com.base.api.service.UserService;
 import com.base.api.util.CommonUtils;
 import com.base.api.util.PasswordGeneratorUtils;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,36 +31,47 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    // Search pages are offsets into a ranked candidate list, so their depth is bounded
+    private static final int MAX_SEARCH_DEPTH = 1000;
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
+    private final SecurityEpochService securityEpochService;
+    private final UserCache userCache;
+    private final PresenceService presenceService;
+    private final KnownEmailFilter knownEmailFilter;
 
-    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, RoleRegistry roleRegistry, PasswordEncoder passwordEncoder,
+                           SecurityEpochService securityEpochService, UserCache userCache, PresenceService presenceService,
+                           KnownEmailFilter knownEmailFilter) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.passwordEncoder = passwordEncoder;
+        this.securityEpochService = securityEpochService;
+        this.userCache = userCache;
+        this.presenceService = presenceService;
+        this.knownEmailFilter = knownEmailFilter;
     }
 
     @Override
     @Transactional(value = "transactionManager")
     public AppUser registerNewUser(final SignUpRequest signUpRequest) throws UserAlreadyExistAuthenticationException {
-        if (signUpRequest.getUserID() != null && userRepository.existsById(signUpRequest.getUserID())) {
-            throw new UserAlreadyExistAuthenticationException("User with User id " + signUpRequest.getUserID() + " already exist");
-        } else if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            throw new UserAlreadyExistAuthenticationException("User with email id " + signUpRequest.getEmail() + " already exist");
-        }
+        // No existence pre-checks: the unique indexes on email and provider user id reject duplicates in the same round trip
         AppUser user = buildUser(signUpRequest);
         Date now = Calendar.getInstance().getTime();
         user.setCreatedDate(now);
         user.setModifiedDate(now);
-        user = userRepository.save(user);
-        userRepository.flush();
+        user = saveUnique(user, signUpRequest.getEmail());
+        userCache.evict(user);
         return user;
     }
 
@@ -63,7 +83,7 @@ public class UserServiceImpl implements UserService {
         user.setEmail(formDTO.getEmail());
         user.setPassword(passwordEncoder.encode(password));
         final HashSet<Role> roles = new HashSet<>();
-        roles.add(roleRepository.findByName(Role.ROLE_USER));
+        roles.add(roleRegistry.get(Role.ROLE_USER));
         user.setRoles(roles);
         user.setProvider(formDTO.getSocialProvider());
         user.setEnabled(true);
@@ -73,7 +93,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public AppUser findUserByEmail(final String email) {
-        return userRepository.findByEmail(email);
+        return userCache.getByEmail(email, () -> userRepository.findByEmail(email));
     }
 
     @Override
@@ -103,10 +123,14 @@ public class UserServiceImpl implements UserService {
         return LocalUser.create(user, attributes, idToken, userInfo);
     }
 
-    private AppUser updateExistingUser(AppUser existingUser, OAuth2UserInfo oAuth2UserInfo) {
+    private AppUser updateExistingUser(AppUser cachedUser, OAuth2UserInfo oAuth2UserInfo) {
+        // The cached copy may be stale; saving it would write back an old status or security epoch
+        AppUser existingUser = userRepository.findById(cachedUser.getId())
+            .orElseThrow(() -> new OAuth2AuthenticationProcessingException("User " + cachedUser.getEmail() + " no longer exists"));
         existingUser.setDisplayName(oAuth2UserInfo.getName());
         existingUser.setPicture(oAuth2UserInfo.getImageUrl());
-        return userRepository.save(existingUser);
+        userCache.evict(existingUser);
+        return existingUser;
     }
 
     private SignUpRequest toUserRegistrationObject(String registrationId, OAuth2UserInfo oAuth2UserInfo) {
@@ -116,25 +140,13 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Optional<AppUser> findUserById(Long id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, userRepository::findById);
     }
 
     @Override
     public void updateUserStatus(long id) {
-        Optional<AppUser> user = userRepository.findById(id);
-        if (user.isPresent()) {
-            user.get().setStatus(UserStatus.DISCONNECTED.name());
-            userRepository.save(user.orElse(null));
-        }
-    }
-    
-    @Override
-    public List<UserInfo> getAllUsers(Long id) {
-        Set<Role> roles = roleRepository.findAllByName(Role.ROLE_USER);
-        return userRepository.findByIdNotAndRolesIn(id, roles)
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // Persisted in the next presence flush instead of a load and save per logout
+        presenceService.disconnect(id);
     }
 
     @Override
@@ -173,10 +185,6 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserInfo createUser(UserInfo userInfo) {
-        if (userRepository.existsByEmail(userInfo.email())) {
-            throw new UserAlreadyExistAuthenticationException("User with email " + userInfo.email() + " already exists");
-        }
-
         AppUser user = new AppUser();
         updateUserFields(user, userInfo);
         
@@ -191,7 +199,7 @@ public class UserServiceImpl implements UserService {
         user.setCreatedDate(now);
         user.setModifiedDate(now);
         
-        AppUser savedUser = userRepository.save(user);
+        AppUser savedUser = saveUnique(user, userInfo.email());
         return convertToDto(savedUser);
     }
 
@@ -201,16 +209,19 @@ public class UserServiceImpl implements UserService {
         AppUser existingUser = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
 
-        // Check if email is being changed and if it's already taken
-        if (!existingUser.getEmail().equals(userInfo.email()) &&
-            userRepository.existsByEmail(userInfo.email())) {
-            throw new UserAlreadyExistAuthenticationException("Email " + userInfo.email() + " is already in use");
-        }
+        // Email and roles are baked into issued tokens, so changing them revokes those tokens
+        boolean securityChanged = !existingUser.getEmail().equals(userInfo.email()) ||
+            !existingUser.getRoles().stream().map(Role::getName).collect(Collectors.toSet()).equals(new HashSet<>(userInfo.roles()));
 
+        userCache.evict(existingUser);
         updateUserFields(existingUser, userInfo);
         existingUser.setModifiedDate(Calendar.getInstance().getTime());
+        if (securityChanged) {
+            securityEpochService.bump(existingUser);
+        }
         
-        AppUser updatedUser = userRepository.save(existingUser);
+        AppUser updatedUser = saveUnique(existingUser, userInfo.email());
+        userCache.evict(updatedUser);
         return convertToDto(updatedUser);
     }
 
@@ -224,15 +235,176 @@ public class UserServiceImpl implements UserService {
         user.setEnabled(false);
         user.setStatus(UserStatus.SUSPENDED.name());
         user.setModifiedDate(Calendar.getInstance().getTime());
+        securityEpochService.bump(user);
         userRepository.save(user);
+        userCache.evict(user);
     }
 
     @Override
-    public List<UserInfo> getAllUsers() {
-        return userRepository.findAll()
-            .stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
+    public UserPage getUsers(UserFilter filter, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String role = filter.role();
+        if (role != null && !role.startsWith("ROLE_")) {
+            role = "ROLE_" + role;
+        }
+        // One extra id tells whether another page follows
+        List<Long> ids = userRepository.findIdPage(decodeCursor(after),
+            filter.status() != null ? filter.status().name() : null, filter.provider(), role, Limit.of(limit + 1));
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
+        }
+        List<UserInfo> users = ids.isEmpty() ? List.of() : toUserInfos(userRepository.findUserRoleRowsByIdIn(ids));
+        return new UserPage(users, hasMore ? encodeCursor(ids.get(ids.size() - 1)) : null);
+    }
+
+    @Override
+    public UserPage searchUsers(String query, String after, int limit) {
+        String q = query == null ? "" : query.trim();
+        if (q.isEmpty() || q.length() > 100) {
+            throw new BadRequestException("q must have between 1 and 100 characters");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int offset = (int) decodeCursor(after);
+        if (offset + limit > MAX_SEARCH_DEPTH) {
+            throw new BadRequestException("Search results are limited to the first " + MAX_SEARCH_DEPTH + " matches, refine the query");
+        }
+
+        // Two index range scans, each stopping after the rows this page can need. '!' is the LIKE escape
+        // character because a backslash literal means something different on MySQL and in standard SQL.
+        String prefix = q.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        int needed = offset + limit + 1;
+        List<UserSearchHit> byDisplayName = userRepository.findByDisplayNamePrefix(prefix, Limit.of(needed));
+        // Email-only hits rank after every display name hit, so they are only needed once that scan is
+        // exhausted, and then some of the email hits may be display name hits already seen
+        List<UserSearchHit> byEmail = userRepository.findByEmailPrefix(prefix,
+            Limit.of(byDisplayName.size() < needed ? needed + byDisplayName.size() : 1));
+
+        // Each group keeps the order of the scan it comes from, so a deeper scan for a later page only
+        // appends to the ranking and never reorders what earlier pages showed
+        Map<Long, Integer> displayNamePosition = new HashMap<>();
+        Map<Long, Integer> emailPosition = new HashMap<>();
+        Map<Long, UserSearchHit> hits = new LinkedHashMap<>();
+        for (int i = 0; i < byDisplayName.size(); i++) {
+            displayNamePosition.put(byDisplayName.get(i).getId(), i);
+            hits.putIfAbsent(byDisplayName.get(i).getId(), byDisplayName.get(i));
+        }
+        for (int i = 0; i < byEmail.size(); i++) {
+            emailPosition.put(byEmail.get(i).getId(), i);
+            hits.putIfAbsent(byEmail.get(i).getId(), byEmail.get(i));
+        }
+
+        String lowerQuery = q.toLowerCase(Locale.ROOT);
+        List<UserSearchHit> ranked = new ArrayList<>(hits.values());
+        ranked.sort(Comparator.<UserSearchHit>comparingInt(hit -> relevance(hit, lowerQuery))
+            .thenComparingInt(hit -> {
+                int relevance = relevance(hit, lowerQuery);
+                Map<Long, Integer> positions = relevance == 0 || relevance == 3 ? emailPosition : displayNamePosition;
+                return positions.getOrDefault(hit.getId(), Integer.MAX_VALUE);
+            }));
+
+        if (offset >= ranked.size()) {
+            return new UserPage(List.of(), null);
+        }
+        List<Long> ids = ranked.subList(offset, Math.min(offset + limit, ranked.size())).stream().map(UserSearchHit::getId).toList();
+        Map<Long, UserInfo> byId = new HashMap<>();
+        toUserInfos(userRepository.findUserRoleRowsByIdIn(ids)).forEach(user -> byId.put(Long.valueOf(user.id()), user));
+        List<UserInfo> users = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        boolean hasMore = ranked.size() > offset + limit;
+        return new UserPage(users, hasMore ? encodeCursor(offset + limit) : null);
+    }
+
+    // Lower is better: exact email, exact display name, display name prefix, then email prefix. An exact
+    // email is first in the email scan and exact display names lead the display name scan, so both are
+    // always among the candidates of the first page.
+    private static int relevance(UserSearchHit hit, String lowerQuery) {
+        String displayName = hit.getDisplayName() != null ? hit.getDisplayName().toLowerCase(Locale.ROOT) : "";
+        String email = hit.getEmail() != null ? hit.getEmail().toLowerCase(Locale.ROOT) : "";
+        if (email.equals(lowerQuery)) {
+            return 0;
+        }
+        if (displayName.equals(lowerQuery)) {
+            return 1;
+        }
+        return displayName.startsWith(lowerQuery) ? 2 : 3;
+    }
+
+    private static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor " + cursor, e);
+        }
+    }
+
+    // Folds the one-row-per-role result of a listing query into one UserInfo per user
+    private List<UserInfo> toUserInfos(List<UserRoleRow> rows) {
+        List<UserInfo> users = new ArrayList<>();
+        UserRoleRow current = null;
+        List<String> roles = null;
+        for (UserRoleRow row : rows) {
+            if (current == null || !current.getId().equals(row.getId())) {
+                if (current != null) {
+                    users.add(toUserInfo(current, roles));
+                }
+                current = row;
+                roles = new ArrayList<>();
+            }
+            if (row.getRoleName() != null) {
+                roles.add(row.getRoleName());
+            }
+        }
+        if (current != null) {
+            users.add(toUserInfo(current, roles));
+        }
+        return users;
+    }
+
+    private static UserInfo toUserInfo(UserRoleRow row, List<String> roles) {
+        return new UserInfo(row.getId().toString(), row.getDisplayName(), row.getPicture(), row.getEmail(), row.getStatus(), roles);
+    }
+
+    /**
+     * Inserts or updates the user and flushes, so a duplicate email or provider user id surfaces here
+     * as a unique index violation instead of at commit.
+     */
+    private AppUser saveUnique(AppUser user, String email) {
+        try {
+            AppUser saved = userRepository.saveAndFlush(user);
+            knownEmailFilter.add(saved.getEmail());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String constraint = uniqueConstraintName(e);
+            if (constraint == null) {
+                throw e;
+            }
+            if (constraint.toLowerCase(Locale.ROOT).contains(AppUser.PROVIDER_USER_INDEX)) {
+                throw new UserAlreadyExistAuthenticationException("User with provider id " + user.getProviderUserId() + " already exist", e);
+            }
+            throw new UserAlreadyExistAuthenticationException("User with email id " + email + " already exist", e);
+        }
+    }
+
+    // Name of the violated unique constraint, or null if the failure was not a unique violation
+    private static String uniqueConstraintName(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+                return violation.getConstraintName() != null ? violation.getConstraintName() : "";
+            }
+        }
+        return e instanceof DuplicateKeyException ? "" : null;
     }
 
     // Helper method to update user fields
@@ -244,7 +416,7 @@ public class UserServiceImpl implements UserService {
         // Update roles
         Set<Role> roles = new HashSet<>();
         for (String roleName : userInfo.roles()) {
-            Role role = roleRepository.findByName(roleName);
+            Role role = roleRegistry.get(roleName);
             if (role != null) {
                 roles.add(role);
             }
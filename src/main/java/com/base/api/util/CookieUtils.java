@@ -7,6 +7,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 
 import java.io.IOException;
 import java.util.Base64;
@@ -43,6 +45,22 @@ public class CookieUtils {
         response.addCookie(cookie);
     }
 
+    /**
+     * Adds a cookie with the given attributes; unlike {@link #addCookie(HttpServletResponse, String, String, int)}
+     * it supports {@code SameSite}, which {@link Cookie} cannot express.
+     */
+    public static void addCookie(HttpServletResponse response, String name, String value, long maxAgeSeconds, String path,
+                                 boolean secure, String sameSite) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+            .path(path)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite(sameSite)
+            .maxAge(maxAgeSeconds)
+            .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
     public static void deleteCookie(HttpServletRequest request, HttpServletResponse response, String name) {
         Cookie[] cookies = request.getCookies();
         if (cookies != null) {
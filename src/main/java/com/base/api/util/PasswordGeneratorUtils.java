@@ -2,40 +2,189 @@ package com.base.api.util;
 
 import java.security.SecureRandom;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 
-public class PasswordGeneratorUtils {
+/**
+ * Generates random passwords from a {@link Policy}: a length, character classes that each appear at
+ * least once, and optionally no look-alike characters such as {@code l}, {@code 1} and {@code O}.
+ * <p>
+ * Generation writes straight into a char array. Randomness is drawn in blocks from a per-thread
+ * {@link SecureRandom} into a reused buffer, so apart from the occasional refill a call allocates
+ * nothing beyond the result.
+ * {@link #generatePasswords(Policy, char[], int, int)} fills a caller-supplied buffer with many
+ * passwords at once for bulk jobs such as imports.
+ */
+public final class PasswordGeneratorUtils {
 
-    private static final String CHAR_LOWER = "abcdefghijklmnopqrstuvwxyz";
-    private static final String CHAR_UPPER = CHAR_LOWER.toUpperCase();
-    private static final String NUMBER = "0123456789";
-    private static final String OTHER_CHAR = "!@#$%&*()_+-=[]?";
+    public enum CharClass {
+        LOWER("abcdefghijklmnopqrstuvwxyz"),
+        UPPER("ABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+        DIGIT("0123456789"),
+        SYMBOL("!@#$%&*()_+-=[]?");
 
-    private static final String PASSWORD_ALLOW_BASE = CHAR_LOWER + CHAR_UPPER + NUMBER + OTHER_CHAR;
+        private final String chars;
 
-    private static final SecureRandom random = new SecureRandom();
+        CharClass(String chars) {
+            this.chars = chars;
+        }
+    }
+
+    private static final String AMBIGUOUS = "Il1O0o";
+
+    /**
+     * Immutable generation rules. The character sets are resolved once when the policy is created.
+     */
+    public static final class Policy {
+
+        private final int length;
+        private final char[][] required;
+        private final char[] alphabet;
+
+        private Policy(int length, char[][] required, char[] alphabet) {
+            this.length = length;
+            this.required = required;
+            this.alphabet = alphabet;
+        }
+
+        /**
+         * @param length           characters per password, at least one per class
+         * @param excludeAmbiguous drop characters that are easily confused when read or typed
+         * @param classes          classes to draw from; each one appears at least once
+         */
+        public static Policy of(int length, boolean excludeAmbiguous, CharClass... classes) {
+            if (classes.length == 0 || length < classes.length) {
+                throw new IllegalArgumentException("Password length " + length + " cannot hold " + classes.length + " character classes");
+            }
+            char[][] required = new char[classes.length][];
+            StringBuilder alphabet = new StringBuilder();
+            for (int i = 0; i < classes.length; i++) {
+                StringBuilder chars = new StringBuilder(classes[i].chars.length());
+                for (char c : classes[i].chars.toCharArray()) {
+                    if (!excludeAmbiguous || AMBIGUOUS.indexOf(c) < 0) {
+                        chars.append(c);
+                    }
+                }
+                required[i] = chars.toString().toCharArray();
+                alphabet.append(chars);
+            }
+            return new Policy(length, required, alphabet.toString().toCharArray());
+        }
+
+        public int length() {
+            return length;
+        }
+    }
+
+    /**
+     * Twelve characters with at least one lower case letter, upper case letter, digit and symbol, no look-alikes.
+     */
+    public static final Policy DEFAULT_POLICY = Policy.of(12, true, CharClass.values());
+
+    // Policies for generatePassword(int), built on first use per length; a race only builds one twice
+    private static final Policy[] POLICIES_BY_LENGTH = new Policy[129];
+
+    private static final class RandomSource {
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] buffer = new byte[1024];
+        private int position = buffer.length;
+
+        private int nextByte() {
+            if (position == buffer.length) {
+                random.nextBytes(buffer);
+                position = 0;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        private int nextInt31() {
+            return (nextByte() & 0x7f) << 24 | nextByte() << 16 | nextByte() << 8 | nextByte();
+        }
 
+        // Uniform in [0, bound), rejecting the values that would bias the modulo. Alphabet and
+        // shuffle bounds fit in a byte, so most draws use one byte of randomness instead of four.
+        private int nextInt(int bound) {
+            if (bound <= 256) {
+                int limit = 256 - 256 % bound;
+                int b;
+                while ((b = nextByte()) >= limit) {
+                    // retry
+                }
+                return b % bound;
+            }
+            int r = nextInt31();
+            int m = bound - 1;
+            for (int u = r; u - (r = u % bound) + m < 0; u = nextInt31()) {
+                // retry
+            }
+            return r;
+        }
+    }
 
+    private static final ThreadLocal<RandomSource> RANDOM = ThreadLocal.withInitial(RandomSource::new);
+
+    private PasswordGeneratorUtils() {
+    }
+
+    /**
+     * @return a password of {@code length} characters that otherwise follows {@link #DEFAULT_POLICY};
+     * lengths shorter than the number of classes only use the first {@code length} classes
+     */
     public static String generatePassword(int length) {
-        if (length < 1) throw new IllegalArgumentException();
-        String passwordAllow = shuffleString();
-        StringBuilder sb = new StringBuilder(length);
-        for (int i = 0; i < length; i++) {
-            int rndCharAt = random.nextInt(passwordAllow.length());
-            char rndChar = passwordAllow.charAt(rndCharAt);
-            sb.append(rndChar);
+        if (length < 1) {
+            throw new IllegalArgumentException("Password length " + length + " must be at least 1");
+        }
+        return generatePassword(policyFor(length));
+    }
+
+    private static Policy policyFor(int length) {
+        if (length == DEFAULT_POLICY.length) {
+            return DEFAULT_POLICY;
         }
+        Policy policy = length < POLICIES_BY_LENGTH.length ? POLICIES_BY_LENGTH[length] : null;
+        if (policy == null) {
+            policy = Policy.of(length, true, Arrays.copyOf(CharClass.values(), Math.min(length, CharClass.values().length)));
+            if (length < POLICIES_BY_LENGTH.length) {
+                POLICIES_BY_LENGTH[length] = policy;
+            }
+        }
+        return policy;
+    }
 
-        return sb.toString();
+    public static String generatePassword(Policy policy) {
+        char[] password = new char[policy.length];
+        generate(policy, password, 0, RANDOM.get());
+        return new String(password);
     }
 
-    // shuffle the characters of a string with SecureRandom
-    private static String shuffleString() {
-        List<String> letters = Arrays.asList(PasswordGeneratorUtils.PASSWORD_ALLOW_BASE.split(""));
-        Collections.shuffle(letters, random);
-        return String.join("", letters);
+    /**
+     * Writes {@code count} passwords back to back into {@code buffer} starting at {@code offset}; password
+     * {@code i} occupies {@code policy.length()} characters from {@code offset + i * policy.length()}.
+     */
+    public static void generatePasswords(Policy policy, char[] buffer, int offset, int count) {
+        if (offset < 0 || count < 0 || (long) count * policy.length > buffer.length - offset) {
+            throw new IllegalArgumentException("Buffer too small for " + count + " passwords of " + policy.length + " characters");
+        }
+        RandomSource random = RANDOM.get();
+        for (int i = 0; i < count; i++) {
+            generate(policy, buffer, offset + i * policy.length, random);
+        }
     }
 
+    private static void generate(Policy policy, char[] buffer, int offset, RandomSource random) {
+        char[][] required = policy.required;
+        char[] alphabet = policy.alphabet;
+        int length = policy.length;
+        for (int i = 0; i < required.length; i++) {
+            buffer[offset + i] = required[i][random.nextInt(required[i].length)];
+        }
+        for (int i = required.length; i < length; i++) {
+            buffer[offset + i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        // Fisher-Yates, so the guaranteed characters do not always lead
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char swap = buffer[offset + i];
+            buffer[offset + i] = buffer[offset + j];
+            buffer[offset + j] = swap;
+        }
+    }
 }
-
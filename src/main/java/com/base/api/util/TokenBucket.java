@@ -0,0 +1,50 @@
+package com.base.api.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm: the whole state is one
+ * "theoretical arrival time", so acquiring a permit is a CAS on a single long and never allocates.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond sustained rate
+     * @param burst            permits that may be taken at once after a quiet period
+     * @throws IllegalArgumentException if the rate is not positive or the burst is below one
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Token bucket needs a positive rate and a burst of at least 1, got " + permitsPerSecond + "/s and " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = tat - now > 0 ? tat : now;
+            if (start - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return nanoseconds until the next permit becomes available, 0 if one is available now
+     */
+    public long nanosUntilAvailable() {
+        long wait = theoreticalArrival.get() - System.nanoTime() - toleranceNanos;
+        return Math.max(0, wait);
+    }
+}
@@ -0,0 +1,104 @@
+package com.base.api.controller;
+
+import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.SocialProvider;
+import com.base.api.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthControllerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter springSecurityFilterChain;
+
+    @Autowired
+    private UserService userService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(springSecurityFilterChain).build();
+    }
+
+    @Test
+    void replayedRefreshTokenRevokesTheWholeFamily() throws Exception {
+        String first = signIn("replay@test.com").get("refreshToken").asText();
+        String second = refresh(first).get("refreshToken").asText();
+        assertNotEquals(first, second);
+
+        refreshRequest(first).andExpect(status().isUnauthorized());
+        // The replay revoked the legitimate successor too
+        refreshRequest(second).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshTokenFromTheCookieIsRotatedInTheCookie() throws Exception {
+        String refreshToken = signIn("cookie@test.com").get("refreshToken").asText();
+
+        MvcResult result = mockMvc.perform(post("/api/auth/refresh").cookie(new Cookie("refresh_token", refreshToken)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.refreshToken").doesNotExist())
+            .andReturn();
+        String setCookie = result.getResponse().getHeader(HttpHeaders.SET_COOKIE);
+        assertTrue(setCookie.startsWith("refresh_token=") && setCookie.contains("HttpOnly") && setCookie.contains("SameSite=Strict"), setCookie);
+        assertFalse(setCookie.startsWith("refresh_token=" + refreshToken + ";"), setCookie);
+    }
+
+    @Test
+    void refreshWithoutATokenIsUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/auth/refresh")).andExpect(status().isUnauthorized());
+    }
+
+    private JsonNode signIn(String email) throws Exception {
+        SignUpRequest signUp = new SignUpRequest(null, "Refresher", email, "secret12", SocialProvider.LOCAL, null);
+        userService.registerNewUser(signUp);
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "password", "secret12"));
+        MvcResult result = mockMvc.perform(post("/api/auth/signin").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode refresh(String refreshToken) throws Exception {
+        MvcResult result = refreshRequest(refreshToken).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private ResultActions refreshRequest(String refreshToken) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken));
+        return mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
@@ -0,0 +1,51 @@
+package com.base.api.exception.handler;
+
+import com.base.api.exception.LoginThrottledException;
+import com.base.api.exception.PasswordHashingUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RestResponseEntityExceptionHandlerTests {
+
+    @RestController
+    static class FailingController {
+
+        @GetMapping("/hashing")
+        String hashing() {
+            throw new PasswordHashingUnavailableException("Too many concurrent sign-ins, please retry shortly", 2);
+        }
+
+        @GetMapping("/throttled")
+        String throttled() {
+            throw new LoginThrottledException("Too many sign-in attempts", 7);
+        }
+    }
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+        .setControllerAdvice(new RestResponseEntityExceptionHandler())
+        .build();
+
+    @Test
+    void saturatedHashingIsAnswered503WithRetryAfter() throws Exception {
+        mockMvc.perform(get("/hashing"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+            .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void throttledSignInIsAnswered429WithRetryAfter() throws Exception {
+        mockMvc.perform(get("/throttled"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"));
+    }
+}
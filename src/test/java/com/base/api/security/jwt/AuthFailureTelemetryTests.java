@@ -0,0 +1,63 @@
+package com.base.api.security.jwt;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthFailureTelemetryTests {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter springSecurityFilterChain;
+
+    @Autowired
+    private AuthFailureTelemetry authFailureTelemetry;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(springSecurityFilterChain).build();
+    }
+
+    @Test
+    void missingTokenCountsOnlyWhenAProtectedEndpointRejectsTheRequest() throws Exception {
+        long before = missing();
+
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        assertEquals(before, missing());
+
+        mockMvc.perform(get("/api/profile")).andExpect(status().isUnauthorized());
+        assertEquals(before + 1, missing());
+    }
+
+    @Test
+    void badTokenIsCountedOnceAsItsReason() throws Exception {
+        long malformed = authFailureTelemetry.getSummary().failures().get("MALFORMED");
+        long before = missing();
+
+        mockMvc.perform(get("/api/profile").header("Authorization", "Bearer not-a-jwt")).andExpect(status().isUnauthorized());
+        assertEquals(malformed + 1, authFailureTelemetry.getSummary().failures().get("MALFORMED"));
+        assertEquals(before, missing());
+    }
+
+    private long missing() {
+        return authFailureTelemetry.getSummary().failures().get("MISSING");
+    }
+}
@@ -0,0 +1,123 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import com.base.api.repo.JwtKeyRepository;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SigningKeyStoreTests {
+
+    private static final long SYNC_INTERVAL_MSEC = 200;
+
+    @Autowired
+    private SigningKeyStore signingKeyStore;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private JwtKeyRepository jwtKeyRepository;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    private long syncInterval;
+
+    @BeforeEach
+    void shortenSyncInterval() {
+        syncInterval = appProperties.getAuth().getKeyStore().getSyncIntervalMsec();
+        appProperties.getAuth().getKeyStore().setSyncIntervalMsec(SYNC_INTERVAL_MSEC);
+    }
+
+    @AfterEach
+    void dropRotatedKeys() {
+        appProperties.getAuth().getKeyStore().setSyncIntervalMsec(syncInterval);
+        jwtKeyRepository.deleteAll();
+        signingKeyStore.sync();
+    }
+
+    @Test
+    void rotatedKeySignsAfterActivationWhileOldTokensKeepVerifying() throws Exception {
+        String before = sign(new Date(System.currentTimeMillis() + 60_000));
+        String keyId = signingKeyStore.rotate("rotated");
+
+        assertEquals("rotated", tokenProvider.getKeyRing().getPendingKeyId());
+        assertNotEquals(keyId, keyIdOf(sign(new Date(System.currentTimeMillis() + 60_000))));
+
+        Thread.sleep(3 * SYNC_INTERVAL_MSEC);
+        String after = sign(new Date(System.currentTimeMillis() + 60_000));
+        assertEquals(keyId, keyIdOf(after));
+        assertTrue(tokenProvider.verifyToken(after).isValid());
+        assertTrue(tokenProvider.verifyToken(before).isValid());
+    }
+
+    @Test
+    void rotatingAgainReplacesThePendingKey() {
+        // Long enough that the first key cannot come close to activating, however slow the rotation
+        appProperties.getAuth().getKeyStore().setSyncIntervalMsec(60_000);
+        String first = signingKeyStore.rotate(null);
+        String second = signingKeyStore.rotate(null);
+
+        assertFalse(jwtKeyRepository.existsById(first));
+        assertFalse(tokenProvider.getKeyRing().hasKey(first));
+        assertEquals(second, tokenProvider.getKeyRing().getPendingKeyId());
+    }
+
+    @Test
+    void existingKeyIdIsRejected() {
+        String current = tokenProvider.getKeyRing().getSigningKey().keyId();
+        assertThrows(IllegalStateException.class, () -> signingKeyStore.rotate(current));
+    }
+
+    @Test
+    void retiredKeyNoLongerVerifies() throws Exception {
+        String before = sign(new Date(System.currentTimeMillis() + 60_000));
+        String previous = keyIdOf(before);
+        signingKeyStore.rotate(null);
+        assertFalse(signingKeyStore.retire(previous));
+
+        Thread.sleep(3 * SYNC_INTERVAL_MSEC);
+        assertTrue(signingKeyStore.retire(previous));
+        assertEquals(TokenValidationResult.Failure.BAD_SIGNATURE, tokenProvider.verifyToken(before).failure());
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String expired = sign(new Date(System.currentTimeMillis() - 1_000));
+        assertEquals(TokenValidationResult.Failure.EXPIRED, tokenProvider.verifyToken(expired).failure());
+    }
+
+    @Test
+    void asymmetricSigningWithoutKeyFilesFailsAtStartup() {
+        AppProperties.Auth auth = new AppProperties().getAuth();
+        auth.setSigningAlgorithm("ES256");
+        assertThrows(IllegalStateException.class, () -> JwtKeyRing.fromProperties(auth));
+    }
+
+    private String sign(Date expiration) {
+        return tokenProvider.getKeyRing().getSigningKey()
+            .sign(Jwts.builder().subject("1").issuedAt(new Date()).expiration(expiration))
+            .compact();
+    }
+
+    private static String keyIdOf(String token) {
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        return header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+    }
+}
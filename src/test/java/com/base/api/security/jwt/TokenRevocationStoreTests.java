@@ -0,0 +1,56 @@
+package com.base.api.security.jwt;
+
+import com.base.api.config.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationStoreTests {
+
+    @TempDir
+    private Path tempDir;
+
+    private static AppProperties appProperties(String journalFile) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAuth().getRevocation().setJournalFile(journalFile);
+        return appProperties;
+    }
+
+    @Test
+    void revokedTokenIdIsRejectedUntilItExpires() throws Exception {
+        TokenRevocationStore store = new TokenRevocationStore(appProperties(""));
+        store.revoke("live", System.currentTimeMillis() + 60_000);
+        store.revoke("short", System.currentTimeMillis() + 50);
+
+        assertTrue(store.isRevoked("live"));
+        assertTrue(store.isRevoked("short"));
+        assertFalse(store.isRevoked("other"));
+
+        Thread.sleep(100);
+        store.purgeExpired();
+        assertTrue(store.isRevoked("live"));
+        assertFalse(store.isRevoked("short"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void journalSurvivesARestart() {
+        String journal = tempDir.resolve("revoked.log").toString();
+        TokenRevocationStore store = new TokenRevocationStore(appProperties(journal));
+        store.revoke("logged-out", System.currentTimeMillis() + 60_000);
+        store.close();
+
+        assertTrue(new TokenRevocationStore(appProperties(journal)).isRevoked("logged-out"));
+    }
+
+    @Test
+    void relativeJournalPathIsRejected() {
+        assertThrows(IllegalStateException.class, () -> new TokenRevocationStore(appProperties("data/revoked-tokens.log")));
+    }
+}
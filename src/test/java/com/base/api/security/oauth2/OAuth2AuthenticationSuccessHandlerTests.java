@@ -0,0 +1,47 @@
+package com.base.api.security.oauth2;
+
+import com.base.api.dto.LocalUser;
+import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.SocialProvider;
+import com.base.api.service.LocalUserDetailService;
+import com.base.api.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OAuth2AuthenticationSuccessHandlerTests {
+
+    @Autowired
+    private OAuth2AuthenticationSuccessHandler successHandler;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LocalUserDetailService localUserDetailService;
+
+    @Test
+    void refreshTokenTravelsInAnHttpOnlyCookieNotTheRedirectUrl() {
+        Long id = userService.registerNewUser(new SignUpRequest(null, "Social", "social@test.com", "secret12", SocialProvider.LOCAL, null)).getId();
+        LocalUser principal = localUserDetailService.loadUserById(id);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String targetUrl = successHandler.determineTargetUrl(new MockHttpServletRequest(), response,
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertTrue(targetUrl.contains("token="), targetUrl);
+        assertFalse(targetUrl.contains("refreshToken"), targetUrl);
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertTrue(setCookie.startsWith("refresh_token=") && setCookie.contains("HttpOnly") && setCookie.contains("Secure"), setCookie);
+    }
+}
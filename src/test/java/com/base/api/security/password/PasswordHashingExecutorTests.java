@@ -0,0 +1,106 @@
+package com.base.api.security.password;
+
+import com.base.api.config.AppProperties;
+import com.base.api.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PasswordHashingExecutorTests {
+
+    private static final long MAX_WAIT_MSEC = 100;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        AppProperties.PasswordHashing config = appProperties.getAuth().getPasswordHashing();
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        config.setMaxWaitMsec(MAX_WAIT_MSEC);
+        config.setRetryAfterSeconds(3);
+        executor = new PasswordHashingExecutor(appProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "second"));
+        while (meterRegistry.get("auth.hashing.queue").gauge().value() < 1) {
+            Thread.sleep(1);
+        }
+
+        PasswordHashingUnavailableException e = assertThrows(PasswordHashingUnavailableException.class,
+            () -> executor.execute(() -> "third"));
+        assertEquals(3, e.getRetryAfterSeconds());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        queued.handle((result, failure) -> null).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void taskThatWaitedTooLongIsDroppedWhileAStartedHashCompletes() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            sleep(3 * MAX_WAIT_MSEC);
+            return "slow";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> late = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            ran.set(true);
+            return "late";
+        }));
+
+        // The running hash takes longer than maxWaitMsec and still returns its result
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PasswordHashingUnavailableException.class, e.getCause());
+        assertFalse(ran.get());
+        assertEquals(1, meterRegistry.get("auth.hashing.rejected").counter().count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
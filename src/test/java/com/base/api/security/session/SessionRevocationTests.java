@@ -0,0 +1,39 @@
+package com.base.api.security.session;
+
+import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.SocialProvider;
+import com.base.api.model.AppUser;
+import com.base.api.service.LocalUserDetailService;
+import com.base.api.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionRevocationTests {
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LocalUserDetailService localUserDetailService;
+
+    @Test
+    void deletingAUserEndsTheirSessions() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Session", "sessions@test.com", "secret12", SocialProvider.LOCAL, null));
+        String sessionId = sessionStore.create(localUserDetailService.loadUserById(user.getId()));
+        assertNotNull(sessionStore.get(sessionId));
+
+        userService.deleteUser(user.getId());
+
+        assertNull(sessionStore.get(sessionId));
+    }
+}
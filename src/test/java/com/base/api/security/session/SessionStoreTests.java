@@ -0,0 +1,97 @@
+package com.base.api.security.session;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.LocalUser;
+import com.base.api.model.AppUser;
+import com.base.api.repo.AuthSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionStoreTests {
+
+    private final AuthSessionRepository authSessionRepository = Mockito.mock(AuthSessionRepository.class);
+
+    private SessionStore sessionStore(boolean writeThrough) {
+        return sessionStore(writeThrough, 30_000);
+    }
+
+    private SessionStore sessionStore(boolean writeThrough, long recheckIntervalMsec) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAuth().getSession().setWriteThrough(writeThrough);
+        appProperties.getAuth().getSession().setRecheckIntervalMsec(recheckIntervalMsec);
+        return new SessionStore(appProperties, authSessionRepository, null);
+    }
+
+    private static LocalUser principal() {
+        AppUser user = AppUser.builder().id(1L).email("session@test.com").password("").enabled(true).roles(Set.of()).build();
+        return new LocalUser(user.getEmail(), "", true, true, true, true, List.of(), user);
+    }
+
+    @Test
+    void createdSessionResolvesUntilRevoked() {
+        SessionStore store = sessionStore(false);
+        LocalUser principal = principal();
+        String sessionId = store.create(principal);
+
+        assertSame(principal, store.get(sessionId).principal());
+        store.revoke(sessionId);
+        assertNull(store.get(sessionId));
+    }
+
+    @Test
+    void unknownIdIsLookedUpOnceThenRemembered() {
+        when(authSessionRepository.findById(anyString())).thenReturn(Optional.empty());
+        SessionStore store = sessionStore(true);
+        String unknown = "AAAAAAAAAAAAAAAAAAAAAA";
+
+        assertNull(store.get(unknown));
+        assertNull(store.get(unknown));
+        verify(authSessionRepository, times(1)).findById(anyString());
+    }
+
+    @Test
+    void malformedIdNeverReachesTheTable() {
+        SessionStore store = sessionStore(true);
+
+        assertNull(store.get("not a session id"));
+        assertNull(store.get("AAAA"));
+        verify(authSessionRepository, never()).findById(anyString());
+        assertNotNull(store.create(principal()));
+    }
+
+    @Test
+    void sessionDeletedFromTheTableEndsAtTheNextRecheck() {
+        SessionStore store = sessionStore(true, 0);
+        String sessionId = store.create(principal());
+        when(authSessionRepository.existsById(anyString())).thenReturn(true, false);
+
+        assertNotNull(store.get(sessionId));
+        assertNull(store.get(sessionId));
+        assertNull(store.get(sessionId));
+        verify(authSessionRepository, times(2)).existsById(anyString());
+    }
+
+    @Test
+    void revokeAllDropsOnlyThatUsersSessions() {
+        SessionStore store = sessionStore(false);
+        String sessionId = store.create(principal());
+
+        store.revokeAll(2);
+        assertNotNull(store.get(sessionId));
+        store.revokeAll(1);
+        assertNull(store.get(sessionId));
+    }
+}
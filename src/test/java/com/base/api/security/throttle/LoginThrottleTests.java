@@ -0,0 +1,76 @@
+package com.base.api.security.throttle;
+
+import com.base.api.config.AppProperties;
+import com.base.api.exception.LoginThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginThrottle throttle(int emailBurst, int ipBurst, int freeFailures) {
+        AppProperties appProperties = new AppProperties();
+        AppProperties.LoginThrottle config = appProperties.getAuth().getLoginThrottle();
+        config.setEmailPermitsPerSecond(0.001);
+        config.setEmailBurst(emailBurst);
+        config.setIpPermitsPerSecond(0.001);
+        config.setIpBurst(ipBurst);
+        config.setFreeFailures(freeFailures);
+        config.setBackoffBaseMsec(60_000);
+        return new LoginThrottle(appProperties, meterRegistry);
+    }
+
+    @Test
+    void emailBucketIsSharedAcrossClientsAndCaseInsensitive() {
+        LoginThrottle throttle = throttle(2, 100, 100);
+        throttle.acquire("victim@test.com", "10.0.0.1");
+        throttle.acquire("VICTIM@test.com", "10.0.0.2");
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class, () -> throttle.acquire("victim@test.com", "10.0.0.3"));
+        assertEquals(1, meterRegistry.get("auth.login.throttle").tag("keyClass", "EMAIL").tag("outcome", "throttled").functionCounter().count());
+        assertDoesNotThrow(() -> throttle.acquire("other@test.com", "10.0.0.3"));
+        assertTrue(e.getRetryAfterSeconds() > 0);
+    }
+
+    @Test
+    void failuresBeyondTheFreeOnesBackOffUntilASuccess() {
+        LoginThrottle throttle = throttle(100, 100, 1);
+        throttle.acquire("user@test.com", "10.0.0.1");
+        throttle.recordFailure("user@test.com", "10.0.0.1");
+        throttle.acquire("user@test.com", "10.0.0.2");
+        throttle.recordFailure("user@test.com", "10.0.0.2");
+
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("user@test.com", "10.0.0.3"));
+        throttle.recordSuccess("user@test.com");
+        assertDoesNotThrow(() -> throttle.acquire("user@test.com", "10.0.0.3"));
+    }
+
+    @Test
+    void fullStripeRefusesNewKeysUntilTheSweep() {
+        AppProperties appProperties = new AppProperties();
+        AppProperties.LoginThrottle config = appProperties.getAuth().getLoginThrottle();
+        config.setStripes(1);
+        config.setMaxKeys(1);
+        config.setIdleTimeoutMsec(0);
+        LoginThrottle throttle = new LoginThrottle(appProperties, meterRegistry);
+
+        throttle.acquire("first@test.com", "10.0.0.1");
+        throttle.acquire("second@test.com", "10.0.0.1");
+        assertEquals(1, untrackedEmails());
+        assertEquals(1, meterRegistry.get("auth.login.throttle.keys").tag("keyClass", "EMAIL").gauge().value());
+
+        throttle.evictIdle();
+        throttle.acquire("second@test.com", "10.0.0.1");
+        assertEquals(1, untrackedEmails());
+    }
+
+    private double untrackedEmails() {
+        return meterRegistry.get("auth.login.throttle").tag("keyClass", "EMAIL").tag("outcome", "untracked").functionCounter().count();
+    }
+}
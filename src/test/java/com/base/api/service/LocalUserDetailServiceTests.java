@@ -0,0 +1,40 @@
+package com.base.api.service;
+
+import com.base.api.dto.LocalUser;
+import com.base.api.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LocalUserDetailServiceTests {
+
+    @Autowired
+    private LocalUserDetailService localUserDetailService;
+
+    @Test
+    void principalFromClaimsCarriesRegisteredRolesWithIds() {
+        Claims claims = Jwts.claims()
+            .subject("7")
+            .add("email", "claims@test.com")
+            .add("roles", List.of(Role.ROLE_USER, "ROLE_DELETED"))
+            .build();
+
+        LocalUser principal = localUserDetailService.loadUserFromClaims(claims);
+
+        assertEquals(1, principal.getUser().getRoles().size());
+        Role role = principal.getUser().getRoles().iterator().next();
+        assertEquals(Role.ROLE_USER, role.getName());
+        assertNotNull(role.getRoleId());
+        assertEquals(1, principal.getAuthorities().size());
+    }
+}
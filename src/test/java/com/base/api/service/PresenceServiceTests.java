@@ -0,0 +1,103 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PresenceServiceTests {
+
+    private static final long TICK_MSEC = 20;
+    private static final long IDLE_TIMEOUT_MSEC = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserCache userCache;
+
+    private PresenceService presenceService;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getPresence().setTickMsec(TICK_MSEC);
+        appProperties.getPresence().setIdleTimeoutMsec(IDLE_TIMEOUT_MSEC);
+        presenceService = new PresenceService(jdbcTemplate, userCache, appProperties, new SimpleMeterRegistry());
+        jdbcTemplate.update("insert into app_user (email, display_name, password, provider, enabled, status, created_date, modified_date, security_epoch) " +
+            "values ('presence@test.com', 'presence', 'x', 'LOCAL', true, 'DISCONNECTED', current_timestamp, current_timestamp, 0)");
+        userId = jdbcTemplate.queryForObject("select user_id from app_user where email = 'presence@test.com'", Long.class);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("delete from app_user where user_id = ?", userId);
+    }
+
+    @Test
+    void idleUserIsSweptAndPersistedAsDisconnected() throws Exception {
+        presenceService.heartbeat(userId);
+        presenceService.flush();
+        assertTrue(presenceService.isOnline(userId));
+        assertEquals("ACTIVE", status());
+
+        Thread.sleep(IDLE_TIMEOUT_MSEC + 3 * TICK_MSEC);
+        presenceService.sweep();
+        presenceService.flush();
+
+        assertFalse(presenceService.isOnline(userId));
+        assertEquals(0, presenceService.getOnlineCount());
+        assertEquals("DISCONNECTED", status());
+    }
+
+    @Test
+    void heartbeatsKeepUserOnlineAcrossSweeps() throws Exception {
+        long until = System.currentTimeMillis() + 3 * IDLE_TIMEOUT_MSEC;
+        while (System.currentTimeMillis() < until) {
+            presenceService.heartbeat(userId);
+            presenceService.sweep();
+            Thread.sleep(TICK_MSEC / 2);
+        }
+        presenceService.flush();
+
+        assertTrue(presenceService.isOnline(userId));
+        assertEquals(1, presenceService.getOnlineCount());
+        assertEquals("ACTIVE", status());
+    }
+
+    @Test
+    void heartbeatAfterDisconnectIsPersistedAsActive() {
+        presenceService.heartbeat(userId);
+        presenceService.disconnect(userId);
+        presenceService.heartbeat(userId);
+        presenceService.flush();
+
+        assertEquals("ACTIVE", status());
+    }
+
+    @Test
+    void suspendedUserIsNotTouched() {
+        jdbcTemplate.update("update app_user set status = 'SUSPENDED' where user_id = ?", userId);
+
+        presenceService.heartbeat(userId);
+        presenceService.flush();
+
+        assertEquals("SUSPENDED", status());
+    }
+
+    private String status() {
+        return jdbcTemplate.queryForObject("select status from app_user where user_id = ?", String.class, userId);
+    }
+}
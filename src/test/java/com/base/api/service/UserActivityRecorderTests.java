@@ -0,0 +1,104 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserActivityRecorderTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AppProperties appProperties = new AppProperties();
+    private long userId;
+
+    @BeforeEach
+    void resetTimestamps() {
+        userId = jdbcTemplate.queryForObject("select user_id from app_user where email = 'admin@test.com'", Long.class);
+        jdbcTemplate.update("update app_user set last_login_at = null, last_seen_at = null where user_id = ?", userId);
+    }
+
+    @Test
+    void repeatedActivityCoalescesIntoOneRowUpdate() {
+        UserActivityRecorder recorder = new UserActivityRecorder(jdbcTemplate, appProperties, meterRegistry);
+        recorder.recordLogin(userId);
+        for (int i = 0; i < 100; i++) {
+            recorder.recordSeen(userId);
+        }
+        assertEquals(1, meterRegistry.get("user.activity.pending").gauge().value());
+
+        recorder.flush();
+
+        assertEquals(1, meterRegistry.get("user.activity.flushed").counter().count());
+        assertEquals(0, meterRegistry.get("user.activity.pending").gauge().value());
+        Timestamp lastLogin = timestamp("last_login_at");
+        assertNotNull(lastLogin);
+        assertFalse(timestamp("last_seen_at").before(lastLogin));
+    }
+
+    @Test
+    void seenOnlyKeepsTheStoredLastLogin() {
+        Timestamp lastLogin = Timestamp.valueOf("2024-01-01 00:00:00");
+        jdbcTemplate.update("update app_user set last_login_at = ? where user_id = ?", lastLogin, userId);
+        UserActivityRecorder recorder = new UserActivityRecorder(jdbcTemplate, appProperties, meterRegistry);
+
+        recorder.recordSeen(userId);
+        recorder.flush();
+
+        assertEquals(lastLogin, timestamp("last_login_at"));
+        assertNotNull(timestamp("last_seen_at"));
+    }
+
+    @Test
+    void shutdownDrainsPendingUpdates() {
+        UserActivityRecorder recorder = new UserActivityRecorder(jdbcTemplate, appProperties, meterRegistry);
+        recorder.recordLogin(userId);
+
+        recorder.close();
+
+        assertNotNull(timestamp("last_login_at"));
+    }
+
+    @Test
+    void failedFlushKeepsUpdatesWithinTheCap() {
+        JdbcTemplate unavailable = mock(JdbcTemplate.class);
+        when(unavailable.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+            .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+        appProperties.getUserActivity().setMaxPending(2);
+        UserActivityRecorder recorder = new UserActivityRecorder(unavailable, appProperties, meterRegistry);
+
+        recorder.recordLogin(1);
+        recorder.recordLogin(2);
+        recorder.recordLogin(3);
+        recorder.flush();
+        recorder.recordSeen(1);
+
+        assertEquals(2, meterRegistry.get("user.activity.pending").gauge().value());
+        assertEquals(1, meterRegistry.get("user.activity.dropped").counter().count());
+    }
+
+    private Timestamp timestamp(String column) {
+        return jdbcTemplate.queryForObject("select " + column + " from app_user where user_id = ?", Timestamp.class, userId);
+    }
+}
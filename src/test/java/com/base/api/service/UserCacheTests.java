@@ -0,0 +1,73 @@
+package com.base.api.service;
+
+import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.SocialProvider;
+import com.base.api.dto.UserInfo;
+import com.base.api.model.AppUser;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Cached", "cached@test.com", "secret12", SocialProvider.LOCAL, null));
+        findById(user.getId());
+        transactionTemplate.execute(status -> userService.findUserByEmail("cached@test.com"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        AppUser byId = findById(user.getId());
+        AppUser byEmail = transactionTemplate.execute(status -> userService.findUserByEmail("cached@test.com"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(user.getId(), byEmail.getId());
+        // Every caller gets its own detached copy
+        assertNotSame(byId, findById(user.getId()));
+    }
+
+    @Test
+    void updateEvictsTheCachedUser() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Before", "evicted@test.com", "secret12", SocialProvider.LOCAL, null));
+        findById(user.getId());
+
+        userService.updateUser(user.getId(), new UserInfo(null, "After", null, "evicted@test.com", null, List.of("ROLE_USER")));
+
+        assertEquals("After", findById(user.getId()).getDisplayName());
+    }
+
+    @Test
+    void changesToACopyDoNotLeakIntoTheCache() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Original", "copy@test.com", "secret12", SocialProvider.LOCAL, null));
+        findById(user.getId()).setDisplayName("Mutated");
+
+        assertEquals("Original", findById(user.getId()).getDisplayName());
+    }
+
+    // The cache loads roles through the loader, so lookups run in a transaction like the production callers
+    private AppUser findById(Long id) {
+        return transactionTemplate.execute(status -> userService.findUserById(id).orElseThrow());
+    }
+}
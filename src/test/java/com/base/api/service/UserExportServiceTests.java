@@ -0,0 +1,84 @@
+package com.base.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class UserExportServiceTests {
+
+    private static final Instant CREATED = Instant.parse("2024-03-01T10:15:30.250Z");
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void insertUser() {
+        jdbcTemplate.update("insert into app_user (email, display_name, password, provider, enabled, status, created_date, modified_date, security_epoch) " +
+                "values (?, ?, 'x', 'LOCAL', true, 'ACTIVE', ?, ?, 0)",
+            "export@test.com", "=HYPERLINK(\"http://evil\")", Timestamp.from(CREATED), Timestamp.from(CREATED));
+    }
+
+    @Test
+    void ndjsonWritesIsoTimestamps() throws Exception {
+        JsonNode row = objectMapper.readTree(line(UserExportService.Format.NDJSON, "export@test.com"));
+
+        assertEquals(CREATED.toString(), row.get("createdDate").asText());
+        assertEquals("=HYPERLINK(\"http://evil\")", row.get("displayName").asText());
+    }
+
+    @Test
+    void csvWritesTheSameTimestampsAndNeutralizesFormulas() throws Exception {
+        String[] fields = line(UserExportService.Format.CSV, "export@test.com").split(",");
+
+        assertEquals("\"'=HYPERLINK(\"\"http://evil\"\")\"", fields[2]);
+        assertEquals(CREATED.toString(), fields[6]);
+    }
+
+    @Test
+    void csvLinesEndInCrlfAndNdjsonLinesInLf() throws Exception {
+        String csv = export(UserExportService.Format.CSV);
+        String ndjson = export(UserExportService.Format.NDJSON);
+
+        assertTrue(csv.endsWith("\r\n"));
+        assertEquals(csv.split("\n", -1).length - 1, csv.split("\r\n", -1).length - 1);
+        assertTrue(ndjson.endsWith("}\n"));
+        assertFalse(ndjson.contains("\r"));
+    }
+
+    private String export(UserExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userExportService.export(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String line(UserExportService.Format format, String email) throws Exception {
+        return export(format).lines()
+            .filter(line -> line.contains(email))
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -0,0 +1,164 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.UserImportReport;
+import com.base.api.dto.UserImportResult;
+import com.base.api.dto.UserImportRow;
+import com.base.api.model.AppUser;
+import com.base.api.model.Role;
+import com.base.api.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserImportServiceTests {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private KnownEmailFilter knownEmailFilter;
+
+    @Test
+    @Transactional
+    void importReportsEveryRowAndCreatesUsersWithRoles() throws Exception {
+        String csv = """
+            email,displayName,password,roles
+            import1@test.com,Import One,secret1,USER;MODERATOR
+            import2@test.com,Import Two,,
+            IMPORT1@test.com,Repeated,secret1,
+            johndoe@test.com,Existing,secret1,
+            not-an-email,Broken,secret1,
+            import3@test.com,Bad Role,secret1,ROLE_UNKNOWN
+            """;
+        List<UserImportRow> rows = userImportService.parseCsv(new BufferedReader(new StringReader(csv)));
+
+        UserImportReport report = userImportService.importUsers(rows);
+
+        assertEquals(2, report.created());
+        assertEquals(2, report.duplicates());
+        assertEquals(2, report.invalid());
+        assertEquals(List.of(UserImportResult.Status.CREATED, UserImportResult.Status.CREATED, UserImportResult.Status.DUPLICATE,
+                UserImportResult.Status.DUPLICATE, UserImportResult.Status.INVALID, UserImportResult.Status.INVALID),
+            report.results().stream().map(UserImportResult::status).toList());
+
+        AppUser imported = userRepository.findByEmail("import1@test.com");
+        assertNotNull(imported);
+        assertTrue(passwordEncoder.matches("secret1", imported.getPassword()));
+        assertEquals("ROLE_MODERATOR,ROLE_USER",
+            imported.getRoles().stream().map(Role::getName).sorted().collect(Collectors.joining(",")));
+        assertEquals(1, userRepository.findByEmail("import2@test.com").getRoles().size());
+    }
+
+    @Test
+    void csvFieldsMayBeQuoted() throws Exception {
+        String csv = "email,displayName,password,roles\r\n" +
+            "\"quoted@test.com\",\"Doe, Jane \"\"JD\"\"\",secret1,USER;MODERATOR\r\n" +
+            "multiline@test.com,\"Two\nLines\",,\r\n";
+
+        List<UserImportRow> rows = userImportService.parseCsv(new BufferedReader(new StringReader(csv)));
+
+        assertEquals(List.of(
+            new UserImportRow("quoted@test.com", "Doe, Jane \"JD\"", "secret1", List.of("USER", "MODERATOR")),
+            new UserImportRow("multiline@test.com", "Two\nLines", null, null)), rows);
+    }
+
+    @Test
+    @Transactional
+    void blankRoleIsInvalid() {
+        UserImportReport report = userImportService.importUsers(List.of(
+            new UserImportRow("blankrole@test.com", "Blank Role", null, Arrays.asList((String) null))));
+
+        assertEquals(UserImportResult.Status.INVALID, report.results().get(0).status());
+        assertNull(userRepository.findByEmail("blankrole@test.com"));
+    }
+
+    @Test
+    @Transactional
+    void generatedPasswordIsReturnedOnce() {
+        UserImportReport report = userImportService.importUsers(List.of(
+            new UserImportRow("generated@test.com", "Generated", null, null),
+            new UserImportRow("given@test.com", "Given", "secret1", null)));
+
+        String generated = report.results().get(0).generatedPassword();
+        assertNotNull(generated);
+        assertTrue(passwordEncoder.matches(generated, userRepository.findByEmail("generated@test.com").getPassword()));
+        assertNull(report.results().get(1).generatedPassword());
+    }
+
+    /**
+     * Runs without a test transaction so the failed batch really rolls back and the rows are retried
+     * in transactions of their own. The existence check is blinded to simulate an email registered
+     * between the check and the insert.
+     */
+    @Test
+    void batchWithConcurrentlyRegisteredEmailFallsBackToSingleRows() {
+        NamedParameterJdbcTemplate blind = Mockito.spy(namedJdbcTemplate);
+        doReturn(List.of()).when(blind).queryForList(anyString(), any(SqlParameterSource.class), eq(String.class));
+        UserImportService service = new UserImportService(jdbcTemplate, blind, transactionTemplate, roleRegistry, passwordEncoder,
+            appProperties, knownEmailFilter);
+        try {
+            UserImportReport report = service.importUsers(List.of(
+                new UserImportRow("fallback1@test.com", "Fallback One", "secret1", null),
+                new UserImportRow("johndoe@test.com", "Existing", "secret1", null),
+                new UserImportRow("fallback2@test.com", "Fallback Two", "secret1", null)));
+
+            assertEquals(List.of(UserImportResult.Status.CREATED, UserImportResult.Status.DUPLICATE, UserImportResult.Status.CREATED),
+                report.results().stream().map(UserImportResult::status).toList());
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from app_user where email = 'fallback1@test.com'", Integer.class));
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from app_user where email = 'johndoe@test.com'", Integer.class));
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from user_role ur join app_user u on u.user_id = ur.user_id " +
+                "where u.email = 'fallback2@test.com'", Integer.class));
+        } finally {
+            service.close();
+            jdbcTemplate.update("delete from user_role where user_id in (select user_id from app_user where email like 'fallback%@test.com')");
+            jdbcTemplate.update("delete from app_user where email like 'fallback%@test.com'");
+        }
+    }
+}
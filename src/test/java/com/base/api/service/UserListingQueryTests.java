@@ -0,0 +1,146 @@
+package com.base.api.service;
+
+import com.base.api.dto.UserFilter;
+import com.base.api.dto.UserInfo;
+import com.base.api.dto.UserPage;
+import com.base.api.model.AppUser;
+import com.base.api.model.Role;
+import com.base.api.repo.RoleRepository;
+import com.base.api.repo.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserListingQueryTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listingAPageTakesTheSameStatementsRegardlessOfRowCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long small = countStatements(statistics, () -> userService.getUsers(UserFilter.NONE, null, 100));
+
+        Role userRole = roleRepository.findByName(Role.ROLE_USER);
+        Role moderatorRole = roleRepository.findByName(Role.ROLE_MODERATOR);
+        for (int i = 0; i < 50; i++) {
+            AppUser user = new AppUser();
+            user.setEmail("listing" + i + "@test.com");
+            user.setDisplayName("listing" + i);
+            user.setPassword("x");
+            user.setEnabled(true);
+            user.setCreatedDate(new Date());
+            user.setRoles(i % 2 == 0 ? Set.of(userRole, moderatorRole) : Set.of(userRole));
+            userRepository.save(user);
+        }
+
+        List<UserInfo> all = userService.getUsers(UserFilter.NONE, null, 100).users();
+        long large = countStatements(statistics, () -> userService.getUsers(UserFilter.NONE, null, 100));
+
+        assertEquals(2, small);
+        assertEquals(small, large);
+        assertTrue(all.size() >= 55);
+        assertTrue(all.stream().filter(u -> u.email().equals("listing0@test.com")).allMatch(u -> u.roles().size() == 2));
+    }
+
+    @Test
+    void keysetPagesCoverEveryUserOnceAtConstantCost() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<String> expected = userRepository.findAll(Sort.by("id")).stream().map(user -> user.getId().toString()).toList();
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String after = cursor;
+            UserPage[] page = new UserPage[1];
+            long statements = countStatements(statistics, () -> page[0] = userService.getUsers(UserFilter.NONE, after, 2));
+            assertEquals(2, statements);
+            page[0].users().forEach(user -> seen.add(user.id()));
+            cursor = page[0].nextCursor();
+        } while (cursor != null);
+        assertEquals(expected, seen);
+
+        UserPage admins = userService.getUsers(new UserFilter(null, null, "ADMIN"), null, 50);
+        assertEquals(List.of("admin@test.com"), admins.users().stream().map(UserInfo::email).toList());
+    }
+
+    @Test
+    void searchMatchesPrefixesCaseInsensitivelyAndRanksExactMatchesFirst() {
+        UserPage page = userService.searchUsers("JO", null, 10);
+        assertEquals(List.of("joe", "john"), page.users().stream().map(UserInfo::displayName).toList());
+
+        UserPage byEmail = userService.searchUsers("janedoe@", null, 10);
+        assertEquals(List.of("janedoe@test.com"), byEmail.users().stream().map(UserInfo::email).toList());
+
+        UserPage exact = userService.searchUsers("jim", null, 1);
+        assertEquals("jim", exact.users().get(0).displayName());
+
+        assertTrue(userService.searchUsers("50%", null, 10).users().isEmpty());
+    }
+
+    @Test
+    void searchPagesFollowOneRankingWhateverThePageSize() {
+        saveUser("pager.zed@test.com", "pager zed");
+        saveUser("pg.alpha@test.com", "pager alpha");
+        saveUser("pager.one@test.com", "Other One");
+        saveUser("pg.exact@test.com", "Pager");
+        saveUser("pager.b@test.com", "pager b");
+        saveUser("pg.x@test.com", "pagerx");
+        saveUser("pager.two@test.com", "Other Two");
+
+        List<String> expected = List.of("Pager", "pager alpha", "pager b", "pager zed", "pagerx", "Other One", "Other Two");
+        assertEquals(expected, userService.searchUsers("pager", null, 50).users().stream().map(UserInfo::displayName).toList());
+        for (int limit = 1; limit <= 3; limit++) {
+            List<String> seen = new ArrayList<>();
+            String cursor = null;
+            do {
+                UserPage page = userService.searchUsers("pager", cursor, limit);
+                page.users().forEach(user -> seen.add(user.displayName()));
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            assertEquals(expected, seen, "limit " + limit);
+        }
+    }
+
+    private void saveUser(String email, String displayName) {
+        AppUser user = new AppUser();
+        user.setEmail(email);
+        user.setDisplayName(displayName);
+        user.setPassword("x");
+        user.setEnabled(true);
+        user.setCreatedDate(new Date());
+        user.setRoles(Set.of(roleRepository.findByName(Role.ROLE_USER)));
+        userRepository.save(user);
+    }
+
+    private static long countStatements(Statistics statistics, Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,171 @@
+package com.base.api.service;
+
+import com.base.api.config.AppProperties;
+import com.base.api.dto.SignUpRequest;
+import com.base.api.dto.SocialProvider;
+import com.base.api.dto.UserInfo;
+import com.base.api.exception.UserAlreadyExistAuthenticationException;
+import com.base.api.model.AppUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserRegistrationTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private KnownEmailFilter knownEmailFilter;
+
+    @Test
+    void concurrentSignupsWithTheSameEmailCreateOneUser() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> outcomes = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        userService.registerNewUser(new SignUpRequest(null, "Racer", "race@test.com", "secret12", SocialProvider.LOCAL, null));
+                        return true;
+                    } catch (UserAlreadyExistAuthenticationException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int created = 0;
+            for (Future<Boolean> outcome : outcomes) {
+                created += outcome.get() ? 1 : 0;
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void changingEmailToATakenOneIsRejected() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Mover", "mover@test.com", "secret12", SocialProvider.LOCAL, null));
+        UserInfo update = new UserInfo(null, "Mover", null, "johndoe@test.com", null, List.of("ROLE_USER"));
+
+        assertThrows(UserAlreadyExistAuthenticationException.class, () -> userService.updateUser(user.getId(), update));
+    }
+
+    @Test
+    void legacyHashIsReencodedOnSignIn() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Legacy", "legacy@test.com", "secret12", SocialProvider.LOCAL, null));
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret12");
+        jdbcTemplate.update("update app_user set password = ? where user_id = ?", legacyHash, user.getId());
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("legacy@test.com", "secret12"));
+
+        String stored = jdbcTemplate.queryForObject("select password from app_user where user_id = ?", String.class, user.getId());
+        assertTrue(stored.startsWith("{bcrypt}$2a$10$"), stored);
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("legacy@test.com", "secret12"));
+    }
+
+    @Test
+    void socialSignInDoesNotWriteBackAStaleCachedUser() {
+        AppUser user = userService.registerNewUser(new SignUpRequest(null, "Social", "stale@test.com", "secret12", SocialProvider.LOCAL, null));
+        transactionTemplate.executeWithoutResult(status -> userService.findUserByEmail("stale@test.com"));
+        // Changed behind the cache's back, as another node would
+        jdbcTemplate.update("update app_user set status = 'SUSPENDED', security_epoch = 7 where user_id = ?", user.getId());
+
+        userService.processUserRegistration("google", Map.of("sub", "g-1", "name", "Renamed", "email", "stale@test.com"), null, null);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("select display_name, status, security_epoch from app_user where user_id = ?", user.getId());
+        assertEquals("Renamed", row.get("display_name"));
+        assertEquals("SUSPENDED", row.get("status"));
+        assertEquals(7L, ((Number) row.get("security_epoch")).longValue());
+    }
+
+    @Test
+    void unknownEmailIsRejectedWithoutATransaction() {
+        userService.registerNewUser(new SignUpRequest(null, "Known", "known@test.com", "secret12", SocialProvider.LOCAL, null));
+        knownEmailFilter.rebuild();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThrows(BadCredentialsException.class,
+            () -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("nobody@test.com", "secret12")));
+
+        assertEquals(0, statistics.getTransactionCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("KNOWN@test.com", "secret12"));
+    }
+
+    @Test
+    void repeatedSignInsWithAnUnknownEmailQueryTheTableOnce() {
+        JdbcTemplate countingJdbcTemplate = spy(jdbcTemplate);
+        KnownEmailFilter filter = new KnownEmailFilter(countingJdbcTemplate, new AppProperties(), new SimpleMeterRegistry());
+        filter.rebuild();
+        LocalUserDetailService userDetailService = new LocalUserDetailService(userService, null, null, filter, transactionTemplate, null);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(UsernameNotFoundException.class, () -> userDetailService.loadUserByUsername("Ghost@test.com"));
+        }
+
+        verify(countingJdbcTemplate, times(1)).queryForObject(eq("select count(*) from app_user where email = ?"), eq(Integer.class), any());
+        filter.add("ghost@test.com");
+        assertTrue(filter.mightExist("ghost@test.com"));
+    }
+
+    @Test
+    void userMissingFromTheFilterCanSignIn() {
+        knownEmailFilter.rebuild();
+        // Written behind the filter's back, as another node or a migration would
+        jdbcTemplate.update("insert into app_user (email, display_name, password, provider, enabled, status, created_date, modified_date, security_epoch) " +
+            "values ('othernode@test.com', 'Other Node', ?, 'LOCAL', true, 'ACTIVE', current_timestamp, current_timestamp, 0)",
+            new BCryptPasswordEncoder(4).encode("secret12"));
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("othernode@test.com", "secret12"));
+        assertTrue(knownEmailFilter.mightExist("othernode@test.com"));
+    }
+}
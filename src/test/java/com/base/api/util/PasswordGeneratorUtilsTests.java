@@ -0,0 +1,60 @@
+package com.base.api.util;
+
+import com.base.api.util.PasswordGeneratorUtils.CharClass;
+import com.base.api.util.PasswordGeneratorUtils.Policy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordGeneratorUtilsTests {
+
+    private static final String AMBIGUOUS = "Il1O0o";
+
+    @Test
+    void everyRequiredClassAppearsAndNoLookAlikes() {
+        for (int i = 0; i < 1000; i++) {
+            String password = PasswordGeneratorUtils.generatePassword(PasswordGeneratorUtils.DEFAULT_POLICY);
+            assertEquals(12, password.length());
+            assertTrue(password.chars().anyMatch(Character::isLowerCase), password);
+            assertTrue(password.chars().anyMatch(Character::isUpperCase), password);
+            assertTrue(password.chars().anyMatch(Character::isDigit), password);
+            assertTrue(password.chars().anyMatch(c -> !Character.isLetterOrDigit(c)), password);
+            assertTrue(password.chars().noneMatch(c -> AMBIGUOUS.indexOf(c) >= 0), password);
+        }
+    }
+
+    @Test
+    void shortLengthsUseTheFirstClasses() {
+        for (int length = 1; length <= 20; length++) {
+            assertEquals(length, PasswordGeneratorUtils.generatePassword(length).length());
+        }
+        assertTrue(PasswordGeneratorUtils.generatePassword(1).chars().allMatch(Character::isLowerCase));
+        assertThrows(IllegalArgumentException.class, () -> PasswordGeneratorUtils.generatePassword(0));
+    }
+
+    @Test
+    void policyRejectsLengthShorterThanItsClasses() {
+        assertThrows(IllegalArgumentException.class, () -> Policy.of(3, true, CharClass.values()));
+        assertThrows(IllegalArgumentException.class, () -> Policy.of(8, true));
+    }
+
+    @Test
+    void bulkGenerationChecksBoundsAndFillsOnlyItsRange() {
+        Policy policy = Policy.of(8, false, CharClass.LOWER, CharClass.DIGIT);
+        char[] buffer = new char[2 + 3 * 8 + 2];
+
+        PasswordGeneratorUtils.generatePasswords(policy, buffer, 2, 3);
+
+        assertEquals("\0\0", new String(buffer, 0, 2));
+        assertEquals("\0\0", new String(buffer, 2 + 3 * 8, 2));
+        for (int i = 0; i < 3; i++) {
+            String password = new String(buffer, 2 + i * 8, 8);
+            assertTrue(password.chars().allMatch(c -> Character.isLowerCase(c) || Character.isDigit(c)), password);
+        }
+        assertThrows(IllegalArgumentException.class, () -> PasswordGeneratorUtils.generatePasswords(policy, buffer, 5, 3));
+        assertThrows(IllegalArgumentException.class, () -> PasswordGeneratorUtils.generatePasswords(policy, buffer, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> PasswordGeneratorUtils.generatePasswords(policy, buffer, 0, -1));
+    }
+}